@@ -0,0 +1,178 @@
+package io.github.webtransport4j.incubator.benchmarks;
+
+import io.github.webtransport4j.incubator.applayer.ServerPushService;
+import io.github.webtransport4j.incubator.applayer.StreamSender;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.Future;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ServerPushService#broadcast} to every subscriber, from publish until each event loop has written and
+ * flushed the message to all of its streams. Subscribers each have their own topic (one per user) and are
+ * spread over {@link #LOOPS} real event loops; the channels drop what is flushed to them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BroadcastBenchmark {
+
+    static final int LOOPS = 4;
+
+    @Param({"1000", "10000", "100000"})
+    public int subscribers;
+
+    private final String message = "{\"type\":\"price\",\"symbol\":\"ACME\",\"bid\":101.25,\"ask\":101.27}";
+
+    private final List<EventLoop> loops = new ArrayList<>();
+    private final List<PushChannel> channels = new ArrayList<>();
+    private final List<Future<?>> barriers = new ArrayList<>(LOOPS);
+    private ServerPushService push;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        for (int i = 0; i < LOOPS; i++) {
+            loops.add(new DefaultEventLoop());
+        }
+        push = new ServerPushService();
+        for (int i = 0; i < subscribers; i++) {
+            PushChannel channel = new PushChannel();
+            loops.get(i % LOOPS).register(channel).sync();
+            channels.add(channel);
+            push.subscribe("user-" + i, new StreamSender(channel));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        for (PushChannel channel : channels) {
+            channel.close().sync();
+        }
+        for (EventLoop loop : loops) {
+            loop.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Benchmark
+    public void broadcast() throws Exception {
+        push.broadcast(message);
+        // Loops run tasks in order: once an empty task behind the fan-out has run, the fan-out is done
+        barriers.clear();
+        for (EventLoop loop : loops) {
+            barriers.add(loop.submit(() -> { }));
+        }
+        for (Future<?> barrier : barriers) {
+            barrier.sync();
+        }
+    }
+
+    /**
+     * An always-active channel for any event loop that drops what is written to it.
+     */
+    static final class PushChannel extends AbstractChannel {
+        private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+        private final ChannelConfig config = new DefaultChannelConfig(this);
+        private volatile boolean open = true;
+
+        PushChannel() {
+            super(null);
+        }
+
+        @Override
+        protected AbstractUnsafe newUnsafe() {
+            return new AbstractUnsafe() {
+                @Override
+                public void connect(SocketAddress remote, SocketAddress local, ChannelPromise promise) {
+                    promise.setFailure(new UnsupportedOperationException());
+                }
+            };
+        }
+
+        @Override
+        protected boolean isCompatible(EventLoop loop) {
+            return true;
+        }
+
+        @Override
+        protected SocketAddress localAddress0() {
+            return null;
+        }
+
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return null;
+        }
+
+        @Override
+        protected void doBind(SocketAddress localAddress) {
+        }
+
+        @Override
+        protected void doDisconnect() {
+            open = false;
+        }
+
+        @Override
+        protected void doClose() {
+            open = false;
+        }
+
+        @Override
+        protected void doBeginRead() {
+        }
+
+        @Override
+        protected void doWrite(ChannelOutboundBuffer in) {
+            while (in.current() != null) {
+                in.remove();
+            }
+        }
+
+        @Override
+        public ChannelConfig config() {
+            return config;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isActive() {
+            return open && isRegistered();
+        }
+
+        @Override
+        public ChannelMetadata metadata() {
+            return METADATA;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.webtransport4j.incubator.benchmarks;
+
+import io.github.webtransport4j.incubator.MessageDispatcher;
+import io.github.webtransport4j.incubator.dispatch.DispatchExecutors;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One inbound message through {@link MessageDispatcher} with the event-loop executor: backpressure
+ * accounting, metrics, the handler (decode to text, build the reply) and the coalesced reply write. The
+ * channel is not a QUIC stream, so this is the datagram path; replies are released once written.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDispatchBenchmark {
+
+    /**
+     * Message size in bytes (ASCII).
+     */
+    @Param({"16", "1024"})
+    public int size;
+
+    private ByteBuf message;
+    private EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        message = Unpooled.directBuffer(size);
+        for (int i = 0; i < size; i++) {
+            message.writeByte('a' + i % 26);
+        }
+        channel = new EmbeddedChannel(new MessageDispatcher(DispatchExecutors.eventLoop()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        message.release();
+    }
+
+    @Benchmark
+    public int dispatch() {
+        channel.writeInbound(message.retainedDuplicate());
+        // Runs the reply drain the handler scheduled
+        channel.runPendingTasks();
+        int replies = 0;
+        ByteBuf reply;
+        while ((reply = channel.readOutbound()) != null) {
+            replies += reply.readableBytes();
+            reply.release();
+        }
+        return replies;
+    }
+}
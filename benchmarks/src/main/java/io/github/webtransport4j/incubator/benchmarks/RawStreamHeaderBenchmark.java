@@ -0,0 +1,136 @@
+package io.github.webtransport4j.incubator.benchmarks;
+
+import io.github.webtransport4j.incubator.RawWebTransportHandler;
+import io.github.webtransport4j.incubator.WebTransportSessionManager;
+import io.github.webtransport4j.incubator.applayer.EchoHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RawWebTransportHandler} on a new stream: the {@code [0x41][session ID]} header followed by a payload,
+ * arriving in one read or one byte per read (the worst split). Each operation is one fresh handler, as for a
+ * new stream; its reads are passed in through a fixed pipeline, so no channel is built per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// The session is charged for every payload and never hands credit back
+@Fork(value = 1, jvmArgsAppend = "-Dwebtransport4j.session.flowControl=false")
+public class RawStreamHeaderBenchmark {
+
+    /**
+     * Payload bytes following the header.
+     */
+    @Param({"0", "64"})
+    public int payload;
+
+    private ByteBuf first;
+    private ByteBuf[] byteByByte;
+    private EmbeddedChannel parent;
+    private EmbeddedChannel stream;
+    private ChannelHandlerContext ctx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 2-byte varint 0x41 as the demux passes it on, a 2-byte session ID, then the payload
+        first = Unpooled.directBuffer(4 + payload);
+        first.writeBytes(new byte[] {0x40, 0x41, 0x40, 0x04});
+        first.writeZero(payload);
+        byteByByte = new ByteBuf[first.readableBytes()];
+        for (int i = 0; i < byteByByte.length; i++) {
+            byteByByte[i] = first.retainedSlice(i, 1);
+        }
+
+        // A connection with session 4 registered: lookup and data accounting run as on a real stream
+        parent = new EmbeddedChannel();
+        WebTransportSessionManager manager = new WebTransportSessionManager();
+        parent.attr(WebTransportSessionManager.WT_SESSION_MGR).set(manager);
+        manager.register(connectStream(parent, 4), "/bench", EchoHandler.INSTANCE);
+        stream = new EmbeddedChannel(parent, parent.id(), true, false, new ChannelInboundHandlerAdapter(),
+                new Sink());
+        ctx = stream.pipeline().firstContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (ByteBuf slice : byteByByte) {
+            slice.release();
+        }
+        first.release();
+        stream.finishAndReleaseAll();
+        parent.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public RawWebTransportHandler whole() {
+        RawWebTransportHandler handler = new RawWebTransportHandler();
+        handler.channelRead(ctx, first.retainedDuplicate());
+        return handler;
+    }
+
+    @Benchmark
+    public RawWebTransportHandler byteByByte() {
+        RawWebTransportHandler handler = new RawWebTransportHandler();
+        for (ByteBuf slice : byteByByte) {
+            handler.channelRead(ctx, slice.retainedDuplicate());
+        }
+        return handler;
+    }
+
+    /**
+     * The CONNECT stream of a session: only its stream ID is read when the session registers, the rest
+     * behaves like {@code channel}.
+     */
+    static QuicStreamChannel connectStream(Channel channel, long streamId) {
+        return (QuicStreamChannel) Proxy.newProxyInstance(QuicStreamChannel.class.getClassLoader(),
+                new Class<?>[] {QuicStreamChannel.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "streamId":
+                            return streamId;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            if (method.getDeclaringClass().isInstance(channel)) {
+                                return method.invoke(channel, args);
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Drops the payload the handler fires.
+     */
+    static final class Sink extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.webtransport4j.incubator.benchmarks;
+
+import io.github.webtransport4j.incubator.MessageDispatcher;
+import io.github.webtransport4j.incubator.PipelineErrorLogger;
+import io.github.webtransport4j.incubator.RawWebTransportHandler;
+import io.github.webtransport4j.incubator.WebTransportStreamDemux;
+import io.github.webtransport4j.incubator.dispatch.DispatchExecutors;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stream classification and pipeline rewiring per new bidirectional stream: the previous
+ * name-scanning hijack ({@code legacy}) against {@link WebTransportStreamDemux}. Throughput is streams
+ * classified per second. The pipeline is built outside the measured region and mirrors the server one:
+ * classifier, three HTTP/3 codec stages, the CONNECT handler and the error logger.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamDemuxBenchmark {
+
+    /**
+     * {@code webtransport}: first read is 0x40 0x41 + session ID; {@code http3}: a HEADERS frame.
+     */
+    @Param({"webtransport", "http3"})
+    public String stream;
+
+    private final WebTransportStreamDemux.Chain chain = () -> new ChannelHandler[] {
+            new RawWebTransportHandler(), new MessageDispatcher(DispatchExecutors.eventLoop()),
+            PipelineErrorLogger.INSTANCE };
+
+    private ByteBuf firstRead;
+    private EmbeddedChannel legacyChannel;
+    private EmbeddedChannel demuxChannel;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        firstRead = "webtransport".equals(stream)
+                ? Unpooled.wrappedBuffer(new byte[] {0x40, 0x41, 0x00})
+                : Unpooled.wrappedBuffer(new byte[] {0x01, 0x00});
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        legacyChannel = newStream(new LegacyDetector());
+        demuxChannel = newStream(new WebTransportStreamDemux(chain));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        legacyChannel.finishAndReleaseAll();
+        demuxChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public ChannelPipeline legacy() {
+        legacyChannel.writeInbound(firstRead.retainedDuplicate());
+        return legacyChannel.pipeline();
+    }
+
+    @Benchmark
+    public ChannelPipeline demux() {
+        demuxChannel.writeInbound(firstRead.retainedDuplicate());
+        return demuxChannel.pipeline();
+    }
+
+    private static EmbeddedChannel newStream(ChannelHandler classifier) {
+        return new EmbeddedChannel(classifier, new FakeHttp3Codec(), new FakeHttp3Codec(), new FakeHttp3Codec(),
+                new ChannelInboundHandlerAdapter(), PipelineErrorLogger.INSTANCE);
+    }
+
+    /**
+     * Stand-in for the HTTP/3 codec stages (their constructors are not public). Passes everything through.
+     */
+    static final class FakeHttp3Codec extends ChannelDuplexHandler {
+    }
+
+    /**
+     * The previous WebTransportDetectorHandler hijack: walk {@code pipeline.names()}, match codec handlers by
+     * class name prefix, remove them one by one, then append a new chain.
+     */
+    static final class LegacyDetector extends ChannelInboundHandlerAdapter {
+        private static final String CODEC_PREFIX = FakeHttp3Codec.class.getName();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf in = (ByteBuf) msg;
+            int firstByte = in.getUnsignedByte(in.readerIndex());
+            if (firstByte == 0x00 || firstByte == 0x01 || firstByte == 0x03 || firstByte == 0x04
+                    || firstByte == 0x05 || firstByte == 0x07 || firstByte == 0x0d) {
+                ctx.pipeline().remove(this);
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            int secondByte = in.getUnsignedByte(in.readerIndex() + 1);
+            if (firstByte == 0x40 && secondByte == 0x41) {
+                ChannelPipeline p = ctx.pipeline();
+                List<String> toRemove = new ArrayList<>();
+                for (String name : p.names()) {
+                    ChannelHandler h = p.get(name);
+                    if (h == null || h == this) {
+                        continue;
+                    }
+                    if (h.getClass().getName().startsWith(CODEC_PREFIX)) {
+                        toRemove.add(name);
+                    }
+                }
+                for (String name : toRemove) {
+                    p.remove(name);
+                }
+                p.addLast(new RawWebTransportHandler());
+                p.addLast(new MessageDispatcher(DispatchExecutors.eventLoop()));
+                p.remove(this);
+            } else {
+                ctx.pipeline().remove(this);
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+}
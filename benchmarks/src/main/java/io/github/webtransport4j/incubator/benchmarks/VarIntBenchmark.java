@@ -0,0 +1,143 @@
+package io.github.webtransport4j.incubator.benchmarks;
+
+import io.github.webtransport4j.incubator.VarIntDecoder;
+import io.github.webtransport4j.incubator.WebTransportUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QUIC varint decode/encode for each of the four length classes, with the encoded value either whole in one
+ * buffer or split across two reads (the case that used to be re-parsed from scratch).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarIntBenchmark {
+
+    /**
+     * Encoded length in bytes: 1, 2, 4 or 8.
+     */
+    @Param({"1", "2", "4", "8"})
+    public int length;
+
+    private long value;
+    private ByteBuf whole;
+    private ByteBuf head;
+    private ByteBuf tail;
+    private ByteBuf out;
+    private final VarIntDecoder decoder = new VarIntDecoder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (length) {
+            case 1:
+                value = 37;
+                break;
+            case 2:
+                value = 15_293;
+                break;
+            case 4:
+                value = 494_878_333;
+                break;
+            default:
+                value = 151_288_809_941_952_652L;
+                break;
+        }
+        whole = Unpooled.directBuffer(8);
+        WebTransportUtils.writeVarInt(whole, value);
+        // Split after the first byte; 1-byte values cannot be split, so the tail is just empty
+        head = whole.retainedSlice(0, 1);
+        tail = whole.retainedSlice(1, whole.readableBytes() - 1);
+        out = Unpooled.directBuffer(16);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        head.release();
+        tail.release();
+        whole.release();
+        out.release();
+    }
+
+    @Benchmark
+    public long decodeWhole() {
+        whole.readerIndex(0);
+        return WebTransportUtils.readVariableLengthInt(whole);
+    }
+
+    @Benchmark
+    public long decodeWholeResumable() {
+        whole.readerIndex(0);
+        decoder.reset();
+        decoder.decode(whole);
+        return decoder.value();
+    }
+
+    @Benchmark
+    public long decodeSplitResumable() {
+        head.readerIndex(0);
+        tail.readerIndex(0);
+        decoder.reset();
+        if (!decoder.decode(head)) {
+            decoder.decode(tail);
+        }
+        return decoder.value();
+    }
+
+    @Benchmark
+    public long decodeSplitReparse() {
+        // What callers did before VarIntDecoder: try, fail, stitch the bytes together and parse again
+        head.readerIndex(0);
+        tail.readerIndex(0);
+        long result = WebTransportUtils.readVariableLengthInt(head);
+        if (result < 0) {
+            ByteBuf merged = Unpooled.wrappedBuffer(head.retain(), tail.retain());
+            try {
+                result = WebTransportUtils.readVariableLengthInt(merged);
+            } finally {
+                merged.release();
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int encode() {
+        out.clear();
+        WebTransportUtils.writeVarInt(out, value);
+        return out.writerIndex();
+    }
+
+    @Benchmark
+    public int encodePairSequential() {
+        out.clear();
+        WebTransportUtils.writeVarInt(out, 0x41);
+        WebTransportUtils.writeVarInt(out, value);
+        return out.writerIndex();
+    }
+
+    @Benchmark
+    public int encodePairBulk() {
+        out.clear();
+        WebTransportUtils.writeVarInts(out, 0x41, value);
+        return out.writerIndex();
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.webtransport4j.incubator.benchmarks.loadgen;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the leaks Netty's leak detector reports during a load run, so a run with
+ * {@code -Dwebtransport4j.loadgen.leakDetection=paranoid} fails on a buffer that was never released instead of
+ * only logging it. Must be installed before the first buffer is allocated: the detectors are created once,
+ * when the buffer classes load.
+ */
+final class LeakCheck {
+
+    private static final LongAdder leaks = new LongAdder();
+
+    private LeakCheck() {
+    }
+
+    static void install(ResourceLeakDetector.Level level) {
+        ResourceLeakDetector.setLevel(level);
+        ResourceLeakDetectorFactory.setResourceLeakDetectorFactory(new ResourceLeakDetectorFactory() {
+            @Override
+            @SuppressWarnings("deprecation")
+            public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval,
+                                                                       long maxActive) {
+                return new CountingDetector<>(resource, samplingInterval);
+            }
+        });
+    }
+
+    /**
+     * Collects unreachable buffers and returns the number of leaks reported so far. Leaks only surface when
+     * the detector tracks the next buffer, so a few buffers are allocated after each collection.
+     */
+    static long collect() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+            for (int j = 0; j < 16; j++) {
+                ByteBuf probe = PooledByteBufAllocator.DEFAULT.directBuffer(1);
+                probe.release();
+            }
+        }
+        return leaks.sum();
+    }
+
+    private static final class CountingDetector<T> extends ResourceLeakDetector<T> {
+
+        CountingDetector(Class<T> resource, int samplingInterval) {
+            super(resource, samplingInterval);
+        }
+
+        @Override
+        protected boolean needReport() {
+            // Count even when nothing would be logged
+            return true;
+        }
+
+        @Override
+        protected void reportTracedLeak(String resourceType, String records) {
+            leaks.increment();
+            super.reportTracedLeak(resourceType, records);
+        }
+
+        @Override
+        protected void reportUntracedLeak(String resourceType) {
+            leaks.increment();
+            super.reportUntracedLeak(resourceType);
+        }
+    }
+}
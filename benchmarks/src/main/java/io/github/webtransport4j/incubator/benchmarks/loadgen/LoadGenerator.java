@@ -0,0 +1,158 @@
+package io.github.webtransport4j.incubator.benchmarks.loadgen;
+
+import io.github.webtransport4j.incubator.WebTransportServer;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.handler.codec.http3.DefaultHttp3SettingsFrame;
+import io.netty.handler.codec.http3.Http3;
+import io.netty.handler.codec.http3.Http3Settings;
+import io.netty.handler.codec.quic.QuicClientCodecBuilder;
+import io.netty.handler.codec.quic.QuicSslContext;
+import io.netty.handler.codec.quic.QuicSslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.NettyRuntime;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.concurrent.Future;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * End-to-end load test over loopback: sessions per second, stream open latency, stream and datagram round
+ * trips, without a browser.
+ * <p>
+ * By default a {@link WebTransportServer} is started in this process on a free port with a self-signed
+ * certificate; {@code -Dwebtransport4j.loadgen.target=host:port} points the clients at a running server
+ * instead. Each of {@code sessions} clients opens its own QUIC connection and WebTransport session, then runs
+ * {@code bidiStreams} concurrent bidirectional streams of {@code messagesPerStream} echoed messages each,
+ * {@code uniStreams} unidirectional streams and {@code datagrams} echoed datagrams (see {@link LoadSession}).
+ * The report goes to stdout; the exit code is 1 if any session failed. With
+ * {@code -Dwebtransport4j.loadgen.leakDetection=paranoid} every buffer is tracked and a reported leak fails the
+ * run as well (see {@link LeakCheck}).
+ * <pre>
+ * java -cp target/benchmarks.jar -Dwebtransport4j.loadgen.sessions=100 \
+ *      io.github.webtransport4j.incubator.benchmarks.loadgen.LoadGenerator
+ * </pre>
+ */
+public final class LoadGenerator {
+    private static final Logger logger = Logger.getLogger(LoadGenerator.class.getName());
+
+    /**
+     * Run parameters, from {@code -Dwebtransport4j.loadgen.*} system properties.
+     */
+    static final class Options {
+        final String target = System.getProperty("webtransport4j.loadgen.target", "");
+        final int sessions = Integer.getInteger("webtransport4j.loadgen.sessions", 10);
+        final int bidiStreams = Integer.getInteger("webtransport4j.loadgen.bidiStreams", 10);
+        final int messagesPerStream = Math.max(1, Integer.getInteger("webtransport4j.loadgen.messagesPerStream", 100));
+        final int uniStreams = Integer.getInteger("webtransport4j.loadgen.uniStreams", 10);
+        final int datagrams = Integer.getInteger("webtransport4j.loadgen.datagrams", 100);
+        final int payload = Integer.getInteger("webtransport4j.loadgen.payload", 64);
+        final long datagramTimeoutMs = Long.getLong("webtransport4j.loadgen.datagramTimeoutMs", 200);
+        final int threads = Integer.getInteger("webtransport4j.loadgen.threads", NettyRuntime.availableProcessors());
+        final long timeoutSeconds = Long.getLong("webtransport4j.loadgen.timeoutSeconds", 300);
+        final String leakDetection = System.getProperty("webtransport4j.loadgen.leakDetection", "");
+
+        @Override
+        public String toString() {
+            return "sessions=" + sessions + " bidiStreams=" + bidiStreams + " messagesPerStream=" + messagesPerStream
+                    + " uniStreams=" + uniStreams + " datagrams=" + datagrams + " payload=" + payload
+                    + " threads=" + threads + (leakDetection.isEmpty() ? "" : " leakDetection=" + leakDetection);
+        }
+    }
+
+    private LoadGenerator() {
+    }
+
+    // SelfSignedCertificate is deprecated as a production tool; a throwaway loopback certificate is exactly
+    // what it is still meant for, and its replacement (netty-pkitesting) would be one more dependency
+    @SuppressWarnings("deprecation")
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        if (!options.leakDetection.isEmpty()) {
+            LeakCheck.install(ResourceLeakDetector.Level.valueOf(options.leakDetection.toUpperCase(Locale.ROOT)));
+        }
+
+        // 1. Server: in-process on loopback with a throwaway certificate, unless a target is given
+        io.netty.handler.ssl.util.SelfSignedCertificate certificate = null;
+        List<Channel> server = null;
+        InetSocketAddress target;
+        if (options.target.isEmpty()) {
+            certificate = new io.netty.handler.ssl.util.SelfSignedCertificate("localhost");
+            QuicSslContext serverSsl = QuicSslContextBuilder.forServer(certificate.key(), null, certificate.cert())
+                    .applicationProtocols(Http3.supportedApplicationProtocols())
+                    .build();
+            InetAddress loopback = InetAddress.getLoopbackAddress();
+            server = WebTransportServer.start(serverSsl, new InetSocketAddress(loopback, 0));
+            target = new InetSocketAddress(loopback, ((InetSocketAddress) server.get(0).localAddress()).getPort());
+        } else {
+            int colon = options.target.lastIndexOf(':');
+            target = new InetSocketAddress(options.target.substring(0, colon),
+                    Integer.parseInt(options.target.substring(colon + 1)));
+        }
+
+        // 2. Clients: the same HTTP/3 settings a browser sends for WebTransport
+        QuicSslContext clientSsl = QuicSslContextBuilder.forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .applicationProtocols(Http3.supportedApplicationProtocols())
+                .build();
+        QuicClientCodecBuilder codec = Http3.newQuicClientCodecBuilder()
+                .sslContext(clientSsl)
+                .maxIdleTimeout(30, TimeUnit.SECONDS)
+                .initialMaxData(10_000_000)
+                .initialMaxStreamDataBidirectionalLocal(1_000_000)
+                .initialMaxStreamDataBidirectionalRemote(1_000_000)
+                .initialMaxStreamsUnidirectional(100)
+                .initialMaxStreamDataUnidirectional(1_000_000)
+                .datagram(10000, 10000);
+        Http3Settings settings = Http3Settings.defaultSettings()
+                .setenablewebtransport(true)
+                .enableH3Datagram(true);
+        EventLoopGroup group = new MultiThreadIoEventLoopGroup(options.threads, NioIoHandler.newFactory());
+
+        // 3. Run every session concurrently and wait for all of them
+        System.out.println("WebTransport load test against " + target + ": " + options);
+        LoadStats stats = new LoadStats();
+        long startedAt = System.nanoTime();
+        List<Future<Void>> sessions = new ArrayList<>(options.sessions);
+        for (int i = 0; i < options.sessions; i++) {
+            sessions.add(new LoadSession(options, stats, new DefaultHttp3SettingsFrame(settings))
+                    .start(group, codec, target));
+        }
+        long deadline = startedAt + TimeUnit.SECONDS.toNanos(options.timeoutSeconds);
+        boolean timedOut = false;
+        for (Future<Void> session : sessions) {
+            if (!session.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                timedOut = true;
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        if (timedOut) {
+            logger.warn("⚠️ Timed out after " + options.timeoutSeconds + " s, reporting what completed");
+        }
+        long lastSessionAt = stats.lastSessionAt.get();
+        stats.report(System.out, elapsed, lastSessionAt > 0 ? lastSessionAt - startedAt : 0);
+
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+        if (server != null) {
+            WebTransportServer.stop(server);
+            certificate.delete();
+        }
+        long leaks = 0;
+        if (!options.leakDetection.isEmpty()) {
+            leaks = LeakCheck.collect();
+            System.out.println("Leaks reported: " + leaks);
+        }
+        // The server's dispatch threads are not daemons
+        System.exit(timedOut || stats.sessionsFailed.sum() > 0 || leaks > 0 ? 1 : 0);
+    }
+}
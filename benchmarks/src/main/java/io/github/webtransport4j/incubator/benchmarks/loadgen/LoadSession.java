@@ -0,0 +1,452 @@
+package io.github.webtransport4j.incubator.benchmarks.loadgen;
+
+import io.github.webtransport4j.incubator.WebTransportUtils;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.http3.DefaultHttp3Headers;
+import io.netty.handler.codec.http3.DefaultHttp3HeadersFrame;
+import io.netty.handler.codec.http3.Http3;
+import io.netty.handler.codec.http3.Http3ClientConnectionHandler;
+import io.netty.handler.codec.http3.Http3DataFrame;
+import io.netty.handler.codec.http3.Http3Headers;
+import io.netty.handler.codec.http3.Http3HeadersFrame;
+import io.netty.handler.codec.http3.Http3RequestStreamInboundHandler;
+import io.netty.handler.codec.http3.Http3SettingsFrame;
+import io.netty.handler.codec.quic.QuicChannel;
+import io.netty.handler.codec.quic.QuicClientCodecBuilder;
+import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.handler.codec.quic.QuicStreamType;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * One client connection with one WebTransport session, driving the configured traffic:
+ * <ol>
+ * <li>QUIC + HTTP/3 connect, then an extended CONNECT ({@code :protocol webtransport}) on {@link #PATH}.</li>
+ * <li>Once the 200 arrives, concurrently: bidirectional streams ({@code 0x41} + session ID) that each
+ * exchange messages ping-pong style with the server's echo, unidirectional streams ({@code 0x54} + session ID)
+ * opened one after another, and datagrams sent one at a time and matched with their echo.</li>
+ * <li>When everything is done, the connection is closed.</li>
+ * </ol>
+ * All state lives on the connection's event loop (its streams share it), so nothing here is synchronized.
+ */
+final class LoadSession {
+    private static final Logger logger = Logger.getLogger(LoadSession.class.getName());
+
+    static final String PATH = "/loadtest";
+    // Ends every message. The server echoes once per read, prefix included, so a message split across reads
+    // comes back in several replies; its terminator comes back exactly once
+    static final byte MESSAGE_END = '\n';
+    // What the server's demo handler answers to a datagram; the echo is this prefix plus the message
+    static final String DATAGRAM_REPLY_PREFIX = "ACK DG: I received the message from " + PATH + ": ";
+
+    private static final ChannelHandler DISCARD = new Discard();
+
+    private final LoadGenerator.Options options;
+    private final LoadStats stats;
+    private final Http3SettingsFrame settings;
+    private final Promise<Void> done = ImmediateEventExecutor.INSTANCE.newPromise();
+
+    private final byte[] message;
+
+    private Channel udp;
+    private QuicChannel connection;
+    private QuicStreamChannel connectStream;
+    private long sessionId = -1;
+    private int pendingTasks;
+    private boolean finishing;
+
+    // The one datagram in flight
+    private long datagramSeq = -1;
+    private long datagramSentAt;
+    private ScheduledFuture<?> datagramTimeout;
+
+    LoadSession(LoadGenerator.Options options, LoadStats stats, Http3SettingsFrame settings) {
+        this.options = options;
+        this.stats = stats;
+        this.settings = settings;
+        message = new byte[Math.max(1, options.payload)];
+        Arrays.fill(message, (byte) 'x');
+        message[message.length - 1] = MESSAGE_END;
+    }
+
+    /**
+     * Starts the session; the future completes when it is finished, successfully or not.
+     */
+    Future<Void> start(EventLoopGroup group, QuicClientCodecBuilder codec, InetSocketAddress target) {
+        final long startedAt = System.nanoTime();
+        new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(codec.build())
+                .bind(0)
+                .addListener((ChannelFuture bound) -> {
+                    if (!bound.isSuccess()) {
+                        fail("bind", bound.cause());
+                        return;
+                    }
+                    udp = bound.channel();
+                    QuicChannel.newBootstrap(udp)
+                            .handler(new ChannelInitializer<QuicChannel>() {
+                                @Override
+                                protected void initChannel(QuicChannel ch) {
+                                    ch.pipeline().addLast(new DatagramEchoHandler());
+                                    // Server-initiated streams (the push demo) are drained and ignored
+                                    ch.pipeline().addLast(new Http3ClientConnectionHandler(null, null,
+                                            type -> DISCARD, settings, true));
+                                }
+                            })
+                            .remoteAddress(target)
+                            .connect()
+                            .addListener((Future<QuicChannel> connected) -> {
+                                if (!connected.isSuccess()) {
+                                    fail("QUIC connect", connected.cause());
+                                    return;
+                                }
+                                connection = connected.getNow();
+                                // The server going away mid-run (idle timeout, connection error) ends the session
+                                connection.closeFuture().addListener(f -> {
+                                    if (!finishing) {
+                                        fail("connection", new ClosedChannelException());
+                                    }
+                                });
+                                if (logger.isDebugEnabled()) {
+                                    logger.debug("🔌 Connected " + connection.id().asShortText() + " to " + target);
+                                }
+                                openSession(startedAt);
+                            });
+                });
+        return done;
+    }
+
+    private void openSession(long startedAt) {
+        Http3.newRequestStream(connection, new ConnectHandler(startedAt))
+                .addListener((Future<QuicStreamChannel> created) -> {
+                    if (!created.isSuccess()) {
+                        fail("CONNECT stream", created.cause());
+                        return;
+                    }
+                    connectStream = created.getNow();
+                    InetSocketAddress remote = (InetSocketAddress) connection.remoteSocketAddress();
+                    Http3Headers headers = new DefaultHttp3Headers();
+                    headers.method("CONNECT");
+                    headers.set(":protocol", "webtransport");
+                    headers.scheme("https");
+                    headers.authority(remote.getHostString() + ":" + remote.getPort());
+                    headers.path(PATH);
+                    connectStream.writeAndFlush(new DefaultHttp3HeadersFrame(headers)).addListener(f -> {
+                        if (!f.isSuccess()) {
+                            fail("CONNECT request", f.cause());
+                        }
+                    });
+                });
+    }
+
+    private void onSessionEstablished(long startedAt) {
+        long now = System.nanoTime();
+        sessionId = connectStream.streamId();
+        stats.sessionSetup.record(now - startedAt);
+        stats.sessionsEstablished.increment();
+        stats.lastSessionAt.accumulate(now);
+
+        pendingTasks = options.bidiStreams + (options.uniStreams > 0 ? 1 : 0) + (options.datagrams > 0 ? 1 : 0);
+        if (pendingTasks == 0) {
+            finish();
+            return;
+        }
+        for (int i = 0; i < options.bidiStreams; i++) {
+            new BidiStream().open();
+        }
+        if (options.uniStreams > 0) {
+            openUniStream(0);
+        }
+        if (options.datagrams > 0) {
+            sendDatagram(0);
+        }
+    }
+
+    private void taskDone() {
+        if (--pendingTasks == 0) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        finishing = true;
+        connection.close().addListener(f -> {
+            udp.close();
+            done.trySuccess(null);
+        });
+    }
+
+    private void fail(String step, Throwable cause) {
+        if (sessionId < 0) {
+            stats.sessionsFailed.increment();
+        }
+        logger.warn("⚠️ Load session failed at " + step + ": " + cause);
+        if (connection != null) {
+            connection.close();
+        }
+        if (udp != null) {
+            udp.close();
+        }
+        finishing = true;
+        done.trySuccess(null);
+    }
+
+    private ByteBuf streamHeader(Channel stream, long streamType, int payloadLength) {
+        ByteBuf buf = stream.alloc().directBuffer(16 + payloadLength);
+        WebTransportUtils.writeVarInts(buf, streamType, sessionId);
+        return buf;
+    }
+
+    // 1. Unidirectional streams, one at a time: open, write header + message, FIN
+    private void openUniStream(int index) {
+        final long openedAt = System.nanoTime();
+        connection.createStream(QuicStreamType.UNIDIRECTIONAL, new ChannelInboundHandlerAdapter())
+                .addListener((Future<QuicStreamChannel> created) -> {
+                    if (!created.isSuccess()) {
+                        logger.warn("⚠️ Uni stream not opened: " + created.cause());
+                        taskDone();
+                        return;
+                    }
+                    QuicStreamChannel stream = created.getNow();
+                    ByteBuf buf = streamHeader(stream, 0x54, message.length).writeBytes(message);
+                    stats.bytesSent.add(buf.readableBytes());
+                    stream.writeAndFlush(buf).addListener(QuicStreamChannel.SHUTDOWN_OUTPUT).addListener(f -> {
+                        stats.uniOpen.record(System.nanoTime() - openedAt);
+                        stats.uniStreams.increment();
+                        if (index + 1 < options.uniStreams && connection.isActive()) {
+                            openUniStream(index + 1);
+                        } else {
+                            taskDone();
+                        }
+                    });
+                });
+    }
+
+    // 2. Datagrams: quarter stream ID + "<seq>:xxx...", echoed back by the server
+    private void sendDatagram(long seq) {
+        byte[] prefix = (seq + ":").getBytes(StandardCharsets.US_ASCII);
+        ByteBuf buf = connection.alloc().directBuffer(8 + Math.max(prefix.length, message.length));
+        WebTransportUtils.writeVarInt(buf, sessionId >>> 2);
+        buf.writeBytes(prefix);
+        if (message.length > prefix.length) {
+            buf.writeBytes(message, prefix.length, message.length - prefix.length);
+        }
+        datagramSeq = seq;
+        datagramSentAt = System.nanoTime();
+        stats.datagramsSent.increment();
+        stats.bytesSent.add(buf.readableBytes());
+        connection.writeAndFlush(buf);
+        // A lost datagram (or echo) is given up on after the timeout
+        datagramTimeout = connection.eventLoop().schedule(() -> {
+            if (datagramSeq == seq) {
+                nextDatagram(seq);
+            }
+        }, options.datagramTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void onDatagramEcho(long seq) {
+        if (seq != datagramSeq) {
+            return; // late echo of a datagram already given up on
+        }
+        stats.datagramRoundTrip.record(System.nanoTime() - datagramSentAt);
+        stats.datagramsAnswered.increment();
+        datagramTimeout.cancel(false);
+        nextDatagram(seq);
+    }
+
+    private void nextDatagram(long seq) {
+        datagramSeq = -1;
+        if (seq + 1 < options.datagrams && connection.isActive()) {
+            sendDatagram(seq + 1);
+        } else {
+            taskDone();
+        }
+    }
+
+    /**
+     * The extended CONNECT stream: waits for the 200, then keeps the session alive until the end. Capsules
+     * the server sends on it are ignored.
+     */
+    private final class ConnectHandler extends Http3RequestStreamInboundHandler {
+        private final long startedAt;
+
+        ConnectHandler(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        protected void channelRead(ChannelHandlerContext ctx, Http3HeadersFrame frame) {
+            CharSequence status = frame.headers().status();
+            ReferenceCountUtil.release(frame);
+            if (sessionId >= 0) {
+                return;
+            }
+            if (status != null && "200".contentEquals(status)) {
+                onSessionEstablished(startedAt);
+            } else {
+                fail("CONNECT", new IllegalStateException("status " + status));
+            }
+        }
+
+        @Override
+        protected void channelRead(ChannelHandlerContext ctx, Http3DataFrame frame) {
+            frame.release();
+        }
+
+        @Override
+        protected void channelInputClosed(ChannelHandlerContext ctx) {
+            if (sessionId < 0) {
+                fail("CONNECT", new IllegalStateException("stream closed without a response"));
+            }
+        }
+    }
+
+    /**
+     * A bidirectional stream exchanging {@code messagesPerStream} messages with the server, one at a time.
+     * The first echo measures stream open latency, the others the round trip. Echoes are counted by the
+     * {@link #MESSAGE_END} terminator, not by length.
+     */
+    private final class BidiStream extends ChannelInboundHandlerAdapter {
+        private long openedAt;
+        private long sentAt;
+        private int sent;
+        private int received;
+        private boolean completed;
+
+        void open() {
+            openedAt = System.nanoTime();
+            connection.createStream(QuicStreamType.BIDIRECTIONAL, this)
+                    .addListener((Future<QuicStreamChannel> created) -> {
+                        if (!created.isSuccess()) {
+                            logger.warn("⚠️ Bidi stream not opened: " + created.cause());
+                            complete();
+                            return;
+                        }
+                        QuicStreamChannel stream = created.getNow();
+                        send(stream, streamHeader(stream, 0x41, message.length));
+                    });
+        }
+
+        private void send(Channel stream, ByteBuf buf) {
+            buf.writeBytes(message);
+            stats.bytesSent.add(buf.readableBytes());
+            sentAt = System.nanoTime();
+            sent++;
+            stream.writeAndFlush(buf);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf) {
+                ByteBuf data = (ByteBuf) msg;
+                stats.bytesReceived.add(data.readableBytes());
+                // One terminator per echoed message, however the echo was split into replies and reads
+                int replies = 0;
+                int end = data.writerIndex();
+                for (int i = data.indexOf(data.readerIndex(), end, MESSAGE_END); i >= 0;
+                        i = data.indexOf(i + 1, end, MESSAGE_END)) {
+                    replies++;
+                }
+                data.release();
+                while (replies-- > 0 && !completed) {
+                    onReply(ctx.channel());
+                }
+            } else {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        private void onReply(Channel stream) {
+            long now = System.nanoTime();
+            if (received++ == 0) {
+                stats.bidiOpen.record(now - openedAt);
+            } else {
+                stats.bidiRoundTrip.record(now - sentAt);
+            }
+            stats.bidiMessages.increment();
+            if (sent < options.messagesPerStream) {
+                send(stream, stream.alloc().directBuffer(message.length));
+            } else {
+                stats.bidiStreams.increment();
+                ((QuicStreamChannel) stream).shutdownOutput();
+                complete();
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (!completed) {
+                logger.warn("⚠️ Bidi stream closed after " + received + "/" + options.messagesPerStream
+                        + " replies");
+                complete();
+            }
+        }
+
+        private void complete() {
+            if (!completed) {
+                completed = true;
+                taskDone();
+            }
+        }
+    }
+
+    /**
+     * Echoed datagrams on the connection pipeline: quarter stream ID, the reply prefix, then our
+     * {@code <seq>:} marker.
+     */
+    private final class DatagramEchoHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (!(msg instanceof ByteBuf)) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            ByteBuf data = (ByteBuf) msg;
+            try {
+                stats.bytesReceived.add(data.readableBytes());
+                WebTransportUtils.readVariableLengthInt(data);
+                String text = data.toString(StandardCharsets.US_ASCII);
+                if (text.startsWith(DATAGRAM_REPLY_PREFIX)) {
+                    int end = text.indexOf(':', DATAGRAM_REPLY_PREFIX.length());
+                    if (end > DATAGRAM_REPLY_PREFIX.length()) {
+                        onDatagramEcho(Long.parseLong(text.substring(DATAGRAM_REPLY_PREFIX.length(), end)));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // not one of ours
+            } finally {
+                data.release();
+            }
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class Discard extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.webtransport4j.incubator.benchmarks.loadgen;
+
+import io.github.webtransport4j.incubator.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms shared by all {@link LoadSession}s of a run. Recorded from the client
+ * event loops, read once at the end.
+ */
+final class LoadStats {
+
+    final LatencyHistogram sessionSetup = new LatencyHistogram();
+    final LatencyHistogram bidiOpen = new LatencyHistogram();
+    final LatencyHistogram bidiRoundTrip = new LatencyHistogram();
+    final LatencyHistogram uniOpen = new LatencyHistogram();
+    final LatencyHistogram datagramRoundTrip = new LatencyHistogram();
+
+    final LongAdder sessionsEstablished = new LongAdder();
+    final LongAdder sessionsFailed = new LongAdder();
+    final LongAdder bidiStreams = new LongAdder();
+    final LongAdder bidiMessages = new LongAdder();
+    final LongAdder uniStreams = new LongAdder();
+    final LongAdder datagramsSent = new LongAdder();
+    final LongAdder datagramsAnswered = new LongAdder();
+    final LongAdder bytesSent = new LongAdder();
+    final LongAdder bytesReceived = new LongAdder();
+    // When the last session got its 200, for the session rate
+    final LongAccumulator lastSessionAt = new LongAccumulator(Long::max, 0);
+
+    void report(PrintStream out, long elapsedNanos, long sessionsNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long sessions = sessionsEstablished.sum();
+        out.println();
+        out.println("=== WebTransport load test: " + String.format("%.2f", seconds) + " s ===");
+        out.println("sessions    " + sessions + " established, " + sessionsFailed.sum() + " failed, "
+                + rate(sessions, sessionsNanos) + " sessions/s");
+        out.println("bidi        " + bidiStreams.sum() + " streams, " + bidiMessages.sum() + " messages, "
+                + rate(bidiMessages.sum(), elapsedNanos) + " msg/s");
+        out.println("uni         " + uniStreams.sum() + " streams, " + rate(uniStreams.sum(), elapsedNanos)
+                + " streams/s");
+        long sent = datagramsSent.sum();
+        long answered = datagramsAnswered.sum();
+        out.println("datagrams   " + sent + " sent, " + answered + " answered"
+                + (sent > 0 ? String.format(" (%.2f%% lost)", 100.0 * (sent - answered) / sent) : ""));
+        out.println("bytes       " + bytesSent.sum() + " out, " + bytesReceived.sum() + " in, "
+                + String.format("%.1f", (bytesSent.sum() + bytesReceived.sum()) / seconds / (1024 * 1024))
+                + " MiB/s");
+        out.println();
+        out.println("latency (us)");
+        out.println("  session setup       " + sessionSetup.snapshot());
+        out.println("  bidi stream open    " + bidiOpen.snapshot());
+        out.println("  bidi round trip     " + bidiRoundTrip.snapshot());
+        out.println("  uni stream open     " + uniOpen.snapshot());
+        out.println("  datagram round trip " + datagramRoundTrip.snapshot());
+    }
+
+    private static String rate(long count, long nanos) {
+        if (nanos <= 0) {
+            return "-";
+        }
+        return String.format("%.0f", count / (nanos / (double) TimeUnit.SECONDS.toNanos(1)));
+    }
+}
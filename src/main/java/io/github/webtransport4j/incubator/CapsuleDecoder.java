@@ -0,0 +1,122 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Incremental capsule parser (RFC 9297, section 3.2) for the DATA frame payloads of a CONNECT stream.
+ * <p>
+ * Capsule boundaries are independent of HTTP/3 frame boundaries. A capsule that lies entirely inside one
+ * frame is handed to the listener as a slice of that frame (no copy); only a capsule that straddles frames is
+ * gathered, as retained slices in a composite buffer. Values larger than {@code maxCapsuleSize} are skipped
+ * while they stream past, without being buffered. Not thread-safe: one instance per CONNECT stream.
+ */
+public final class CapsuleDecoder {
+    private static final Logger logger = Logger.getLogger(CapsuleDecoder.class.getName());
+
+    static final int DEFAULT_MAX_CAPSULE_SIZE = Integer.getInteger("webtransport4j.capsule.maxSize", 65536);
+
+    public interface Listener {
+        /**
+         * Called once per complete capsule. {@code value} is only borrowed for the duration of the call.
+         */
+        void onCapsule(long type, ByteBuf value);
+    }
+
+    private final Listener listener;
+    private final int maxCapsuleSize;
+    private final VarIntDecoder typeDecoder = new VarIntDecoder();
+    private final VarIntDecoder lengthDecoder = new VarIntDecoder();
+
+    // Value bytes of the current capsule still to come; -1 while its header is incomplete
+    private long remaining = -1;
+    private boolean skipping;
+    private CompositeByteBuf gathered;
+
+    public CapsuleDecoder(Listener listener) {
+        this(listener, DEFAULT_MAX_CAPSULE_SIZE);
+    }
+
+    public CapsuleDecoder(Listener listener, int maxCapsuleSize) {
+        this.listener = listener;
+        this.maxCapsuleSize = maxCapsuleSize;
+    }
+
+    /**
+     * Consumes every readable byte of {@code in}; the caller keeps ownership of it.
+     */
+    public void decode(ByteBuf in, ByteBufAllocator alloc) {
+        while (in.isReadable()) {
+            if (remaining < 0) {
+                if (!typeDecoder.decode(in) || !lengthDecoder.decode(in)) {
+                    return;
+                }
+                remaining = lengthDecoder.value();
+                skipping = remaining > maxCapsuleSize;
+                if (skipping) {
+                    logger.warn("⚠️ Skipping oversized capsule 0x" + Long.toHexString(typeDecoder.value())
+                            + " (" + remaining + " bytes)");
+                }
+            }
+            int readable = (int) Math.min(remaining, in.readableBytes());
+            if (readable == 0 && remaining > 0) {
+                return;
+            }
+            if (skipping) {
+                in.skipBytes(readable);
+                remaining -= readable;
+            } else if (gathered == null && readable == remaining) {
+                // 1. Fast path: the whole value is in this frame
+                remaining = 0;
+                listener.onCapsule(typeDecoder.value(), in.readSlice(readable));
+            } else {
+                // 2. Straddles frames: keep references, not copies
+                if (gathered == null) {
+                    gathered = alloc.compositeBuffer();
+                }
+                gathered.addComponent(true, in.readRetainedSlice(readable));
+                remaining -= readable;
+                if (remaining == 0) {
+                    CompositeByteBuf value = gathered;
+                    gathered = null;
+                    try {
+                        listener.onCapsule(typeDecoder.value(), value);
+                    } finally {
+                        value.release();
+                    }
+                }
+            }
+            if (remaining == 0) {
+                reset();
+            }
+        }
+    }
+
+    /**
+     * True if a capsule has been started but not completed (the stream must not end here).
+     */
+    public boolean isPartial() {
+        return remaining >= 0 || typeDecoder.isStarted();
+    }
+
+    /**
+     * Drops any partially gathered capsule. Call when the stream goes away.
+     */
+    public void release() {
+        if (gathered != null) {
+            gathered.release();
+            gathered = null;
+        }
+        reset();
+    }
+
+    private void reset() {
+        typeDecoder.reset();
+        lengthDecoder.reset();
+        remaining = -1;
+        skipping = false;
+    }
+}
@@ -1,170 +1,177 @@
 package io.github.webtransport4j.incubator;
 
+import io.github.webtransport4j.incubator.applayer.EchoHandler;
+import io.github.webtransport4j.incubator.dispatch.DispatchExecutor;
+import io.github.webtransport4j.incubator.dispatch.DispatchExecutors;
+import io.github.webtransport4j.incubator.dispatch.InboundBackpressure;
+import io.github.webtransport4j.incubator.metrics.PathMetrics;
+import io.github.webtransport4j.incubator.metrics.WebTransportMetrics;
+import io.github.webtransport4j.incubator.routing.RouteHandler;
+import io.github.webtransport4j.incubator.routing.TransportType;
+import io.github.webtransport4j.incubator.routing.WebTransportMessage;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.handler.codec.quic.QuicStreamType;
 import org.apache.log4j.Logger;
 
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import static io.github.webtransport4j.incubator.WebTransportUtils.writeVarInt;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Hands inbound stream reads and datagrams to the {@link RouteHandler} of their session, on the
+ * {@link DispatchExecutor}. The handler was resolved when the session's CONNECT request was accepted, so
+ * dispatching is a field read on the session; messages on channels not bound to a session go to the
+ * fallback handler. Each read becomes a {@link WebTransportMessage} around a retained slice of the inbound
+ * buffer, owned by the handler from then on: nothing is copied or decoded here.
+ */
 public class MessageDispatcher extends SimpleChannelInboundHandler<ByteBuf> {
 
     private static final Logger logger = Logger.getLogger(MessageDispatcher.class.getName());
-    private static final ExecutorService businessPool = Executors.newFixedThreadPool(4);
+    private final DispatchExecutor executor;
+    private final RouteHandler fallback;
+
+    public MessageDispatcher() {
+        this(DispatchExecutors.defaultExecutor());
+    }
+
+    public MessageDispatcher(DispatchExecutor executor) {
+        this(executor, EchoHandler.INSTANCE);
+    }
+
+    public MessageDispatcher(DispatchExecutor executor, RouteHandler fallback) {
+        this.executor = executor;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof WebTransportMessageChunk) {
+            // Streaming framing mode: chunks of one large message are dispatched in order like plain reads,
+            // keeping the message length and the last-chunk flag
+            WebTransportMessageChunk chunk = (WebTransportMessageChunk) msg;
+            try {
+                QuicStreamChannel stream = (QuicStreamChannel) ctx.channel();
+                dispatch(stream, WebTransportSession.of(stream), streamType(stream), chunk.content(), chunk);
+            } finally {
+                chunk.release();
+            }
+            return;
+        }
+        if (msg instanceof WebTransportDatagram) {
+            WebTransportDatagram datagram = (WebTransportDatagram) msg;
+            try {
+                dispatch(ctx.channel(), datagram.session(), TransportType.DATAGRAM, datagram.content(), null);
+            } finally {
+                datagram.release();
+            }
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
         Channel channel = ctx.channel();
-        
+        if (channel instanceof QuicStreamChannel) {
+            QuicStreamChannel stream = (QuicStreamChannel) channel;
+            dispatch(channel, WebTransportSession.of(stream), streamType(stream), msg, null);
+        } else {
+            // A datagram that did not come through WebTransportDatagramHandler
+            dispatch(channel, null, TransportType.DATAGRAM, msg, null);
+        }
+    }
+
+    private static TransportType streamType(QuicStreamChannel stream) {
+        // Only client-initiated streams get here: a unidirectional one is a 0x54 stream
+        return stream.type() == QuicStreamType.UNIDIRECTIONAL
+                ? TransportType.UNIDIRECTIONAL : TransportType.BIDIRECTIONAL;
+    }
+
+    // chunk is null unless msg is the content of a streamed chunk
+    private void dispatch(Channel channel, WebTransportSession session, TransportType type, ByteBuf msg,
+                          WebTransportMessageChunk chunk) {
         // 1. Debug: Log the raw hex to see invisible bytes (like 0x00)
         if (logger.isDebugEnabled()) {
              logger.debug("📦 [RAW PAYLOAD] " + ByteBufUtil.hexDump(msg));
         }
 
-        String path;
-        String transportType;
-        
-        // Determine Context
-        if (channel instanceof QuicStreamChannel) {
-            QuicStreamChannel stream = (QuicStreamChannel) channel;
-            Long typeAttr = stream.attr(WebTransportUtils.STREAM_TYPE_KEY).get();
-            String pathAttr = stream.parent().attr(WebTransportServer.SESSION_PATH_KEY).get();
-
-            path = (pathAttr != null) ? pathAttr : "?";
-            transportType = (typeAttr != null && typeAttr == 0x54) ? "UNIDIRECTIONAL" : "BIDIRECTIONAL";
+        final InboundBackpressure streamPressure;
+        final InboundBackpressure connectionPressure;
+        if (type == TransportType.DATAGRAM) {
+            streamPressure = null;
+            connectionPressure = InboundBackpressure.of(channel);
         } else {
-            WebTransportUtils.readVariableLengthInt(msg); // consume datagram ID
-            String pathAttr = channel.attr(WebTransportServer.SESSION_PATH_KEY).get();
-            path = (pathAttr != null) ? pathAttr : "?";
-            transportType = "DATAGRAM";
+            streamPressure = InboundBackpressure.of(channel);
+            connectionPressure = InboundBackpressure.of(channel.parent());
+        }
+        // Datagrams are not subject to session flow control
+        final WebTransportSession creditSession = type == TransportType.DATAGRAM ? null : session;
+        final RouteHandler handler = session != null ? session.handler() : fallback;
+
+        // 2. Offload to Business Logic: the handler takes over this reference
+        final WebTransportMessage message = chunk == null
+                ? new WebTransportMessage(channel, session, type, msg.retainedSlice())
+                : new WebTransportMessage(channel, session, type, msg.retainedSlice(), chunk.messageLength(),
+                        chunk.isLast());
+        final int bytes = msg.readableBytes();
+
+        // Account before handing off, so a slow handler stops us reading (and QUIC stops granting credit)
+        connectionPressure.enqueued(bytes);
+        if (streamPressure != null) {
+            streamPressure.enqueued(bytes);
         }
 
-        // 2. Offload to Business Logic
-        msg.retain(); 
-        final String finalPath = path;
-        final String finalType = transportType;
-
-        businessPool.submit(() -> {
-            try {
-                processBusinessLogic(channel, finalPath, finalType, msg);
-                //processSocketIOPacket(channel, finalPath, finalType, msg);
-            } finally {
-                msg.release();
-            }
-        });
-    }
-    private void processBusinessLogic(Channel channel, String path, String type, ByteBuf payload) {
-        try {
-            String content = payload.toString(StandardCharsets.UTF_8);
-            logger.debug("⚡️ [APP LAYER] Dispatched to Controller:");
-            logger.debug("    Path: " + path);
-            logger.debug("    Type: " + type);
-            logger.debug("    Data: " + content);
-
-            
-            
-            // simulating the reply
-            if ("BIDIRECTIONAL".equals(type)) {
-                if (channel instanceof QuicStreamChannel) {
-                    reply((QuicStreamChannel) channel, "ACK BI: I received the message from " + path + ": " + content);
-                }
-            }
-            if ("DATAGRAM".equals(type)) {
-                sendDatagram(channel, "ACK DG: I received the message from " + path + ": " + content);
-            }
-        } catch (Exception e) {
-            logger.error("Error in business logic", e);
+        // Timestamps only when metrics are on
+        final PathMetrics pathMetrics = !WebTransportMetrics.ENABLED ? null
+                : session != null ? session.pathMetrics() : WebTransportMetrics.path(null);
+        final long enqueuedAt;
+        if (pathMetrics != null) {
+            enqueuedAt = System.nanoTime();
+            WebTransportMetrics.dispatchQueued();
+        } else {
+            enqueuedAt = 0;
         }
-    }
 
-    private void processSocketIOPacket(Channel channel, String path, String transportType, ByteBuf payload) {
+        // Ordered per channel: chunks of one stream never overtake each other
         try {
-            // Convert to String
-            String rawContent = payload.toString(StandardCharsets.UTF_8);
-            logger.debug("⚡️ [SOCKET.IO] " + transportType + " | Raw: " + rawContent);
-            if (rawContent.isEmpty()) return;
-
-            // 🔍 FIX: Sanitize the input to remove Ghost Bytes (0x00, 0x01, etc)
-            // This finds the first index that IS NOT a control character
-            int validStartIndex = 0;
-            while (validStartIndex < rawContent.length() && rawContent.charAt(validStartIndex) <= 32) {
-                validStartIndex++;
+            executor.execute(channel, () -> {
+                long startedAt = pathMetrics != null ? System.nanoTime() : 0;
+                try {
+                    handler.onMessage(message);
+                } catch (Throwable t) {
+                    logger.error("Route handler failed", t);
+                } finally {
+                    if (pathMetrics != null) {
+                        WebTransportMetrics.dispatched(pathMetrics, bytes, startedAt - enqueuedAt,
+                                System.nanoTime() - startedAt);
+                    }
+                    connectionPressure.dequeued(bytes);
+                    if (streamPressure != null) {
+                        streamPressure.dequeued(bytes);
+                    }
+                    // Consumed: return WT_MAX_DATA credit to the peer
+                    if (creditSession != null) {
+                        creditSession.onDataConsumed(bytes);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shut down or full: drop the message, but give back everything it was charged
+            logger.warn("🚫 Dispatch rejected, dropping " + bytes + " bytes on " + channel.id(), e);
+            message.release();
+            if (pathMetrics != null) {
+                WebTransportMetrics.dispatchRejected();
             }
-
-            // If string was only garbage/control chars
-            if (validStartIndex >= rawContent.length()) {
-                logger.debug("⚠️ Ignored packet containing only control characters.");
-                return;
+            connectionPressure.dequeued(bytes);
+            if (streamPressure != null) {
+                streamPressure.dequeued(bytes);
             }
-
-            // Extract the clean content
-            String content = rawContent.substring(validStartIndex);
-
-            // 1. Parse Socket.IO Packet Type
-            char packetType = content.charAt(0);
-            String data = (content.length() > 1) ? content.substring(1) : "";
-
-            logger.debug("⚡️ [SOCKET.IO] " + transportType + " | Type: " + packetType + " | Data: " + data);
-
-            // 2. Handle Types
-            switch (packetType) {
-                case '0': // OPEN
-                    logger.info("👋 Received OPEN (Handshake). Data: " + data);
-                    // Standard Socket.IO reply to Open is usually an Open packet back with session ID
-                    reply(channel, "0{\"sid\":\"" + channel.id().asShortText() + "\",\"upgrades\":[],\"pingInterval\":25000,\"pingTimeout\":20000}");
-                    break;
-
-                case '1': // CLOSE
-                    logger.info("❌ Received CLOSE.");
-                    channel.close();
-                    break;
-
-                case '2': // PING
-                    logger.debug("❤️ Received PING. Sending PONG...");
-                    reply(channel, "3");
-                    break;
-
-                case '3': // PONG
-                    logger.debug("💓 Received PONG (Client alive).");
-                    break;
-                
-                case '4': // MESSAGE
-                    logger.info("📩 Received MESSAGE: " + data);
-                    break;
-
-                default:
-                    logger.warn("⚠️ Unknown Packet Type: '" + packetType + "' (Ascii: " + (int)packetType + ")");
+            if (creditSession != null) {
+                creditSession.onDataConsumed(bytes);
             }
-
-        } catch (Exception e) {
-            logger.error("Error processing packet", e);
         }
     }
-
-    private void reply(Channel channel, String text) {
-        channel.eventLoop().execute(() -> {
-            ByteBuf buffer = channel.alloc().directBuffer();
-            buffer.writeBytes(text.getBytes(StandardCharsets.UTF_8));
-            channel.writeAndFlush(buffer);
-            logger.debug("✅ Sent Reply: " + text);
-        });
-    }
-    private void sendDatagram(Channel channel, String text) {
-    Channel rawChannel = (channel instanceof QuicStreamChannel) ? channel.parent() : channel;
-
-    rawChannel.eventLoop().execute(() -> {
-        ByteBuf buffer = rawChannel.alloc().directBuffer();
-        writeVarInt(buffer, 0);
-        buffer.writeBytes(text.getBytes(StandardCharsets.UTF_8));
-        rawChannel.writeAndFlush(buffer);
-        logger.debug("✅ Datagram Sent: " + text);
-    });
-}
 }
@@ -0,0 +1,28 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Catch-all exception handler at the end of every stream pipeline. An exception that got this far was not
+ * handled by anything in front of it, so the stream's state is unknown: it is logged and the stream closed
+ * (which, for a CONNECT stream, ends its session). Stateless, so one instance is shared.
+ */
+@ChannelHandler.Sharable
+public final class PipelineErrorLogger extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = Logger.getLogger(PipelineErrorLogger.class.getName());
+
+    public static final PipelineErrorLogger INSTANCE = new PipelineErrorLogger();
+
+    private PipelineErrorLogger() {
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.warn("❌ PIPELINE ERROR on stream " + ctx.channel().id().asShortText() + ", closing it", cause);
+        ctx.close();
+    }
+}
@@ -0,0 +1,176 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.handler.codec.quic.QLogConfiguration;
+import io.netty.handler.codec.quic.QuicChannel;
+import io.netty.handler.codec.quic.QuicChannelOption;
+import io.netty.handler.codec.quic.QuicSslContext;
+import io.netty.handler.codec.quic.QuicSslEngine;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Per-connection qlog tracing through the native QUIC codec: congestion window, RTT, loss and flow-control
+ * events, one {@code .qlog} file per traced connection.
+ * <p>
+ * quiche reads the qlog setting once, when the connection is created, so the decision is taken in the
+ * SSL engine provider (the last hook before that point). A live connection cannot be switched to tracing.
+ * What can be armed at runtime is tracing of the <em>next</em> connections from a peer address
+ * ({@link #traceNextFrom}) or of the next connections overall ({@link #traceNext}). Otherwise connections are
+ * sampled with {@code -Dwebtransport4j.qlog.sampleRate}.
+ * <p>
+ * Files go to {@code -Dwebtransport4j.qlog.dir}. A background task deletes the oldest ones once the
+ * directory is larger than {@code -Dwebtransport4j.qlog.maxBytes}.
+ */
+public final class QlogTracer {
+    private static final Logger logger = Logger.getLogger(QlogTracer.class.getName());
+
+    static final String DIR = System.getProperty("webtransport4j.qlog.dir", "qlog");
+    static final double SAMPLE_RATE = Double.parseDouble(System.getProperty("webtransport4j.qlog.sampleRate", "0"));
+    static final long MAX_BYTES = Long.getLong("webtransport4j.qlog.maxBytes", 256L * 1024 * 1024);
+    static final long PRUNE_INTERVAL_SECONDS = Long.getLong("webtransport4j.qlog.pruneIntervalSeconds", 30);
+
+    // Peer IP -> number of upcoming connections to trace
+    private static final ConcurrentHashMap<String, AtomicInteger> ARMED_REMOTES = new ConcurrentHashMap<>();
+    private static final AtomicInteger ARMED_ANY = new AtomicInteger();
+    private static final AtomicInteger TRACED = new AtomicInteger();
+
+    private static volatile ScheduledExecutorService pruner;
+
+    private QlogTracer() {
+    }
+
+    /**
+     * SSL engine provider for the server codec builder that also decides whether the connection is traced.
+     */
+    public static Function<QuicChannel, ? extends QuicSslEngine> sslEngineProvider(QuicSslContext sslContext) {
+        return channel -> {
+            if (shouldTrace(channel)) {
+                enable(channel);
+            }
+            return sslContext.newEngine(channel.alloc());
+        };
+    }
+
+    /**
+     * Traces the next {@code connections} connections whose peer has this IP address.
+     */
+    public static void traceNextFrom(String remoteAddress, int connections) {
+        ARMED_REMOTES.computeIfAbsent(remoteAddress, k -> new AtomicInteger()).addAndGet(connections);
+        logger.info("🛰️ qlog armed for the next " + connections + " connection(s) from " + remoteAddress);
+    }
+
+    /**
+     * Traces the next {@code connections} connections from any peer.
+     */
+    public static void traceNext(int connections) {
+        ARMED_ANY.addAndGet(connections);
+    }
+
+    public static boolean isTraced(QuicChannel channel) {
+        return channel.config().getOption(QuicChannelOption.QLOG) != null;
+    }
+
+    /**
+     * Connections traced since start.
+     */
+    public static int tracedConnections() {
+        return TRACED.get();
+    }
+
+    private static boolean shouldTrace(QuicChannel channel) {
+        if (!ARMED_REMOTES.isEmpty()) {
+            SocketAddress remote = channel.remoteSocketAddress();
+            if (remote instanceof InetSocketAddress) {
+                AtomicInteger armed = ARMED_REMOTES.get(((InetSocketAddress) remote).getAddress().getHostAddress());
+                if (armed != null && take(armed)) {
+                    return true;
+                }
+            }
+        }
+        if (ARMED_ANY.get() > 0 && take(ARMED_ANY)) {
+            return true;
+        }
+        return SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE;
+    }
+
+    private static boolean take(AtomicInteger armed) {
+        int left;
+        do {
+            left = armed.get();
+            if (left <= 0) {
+                return false;
+            }
+        } while (!armed.compareAndSet(left, left - 1));
+        return true;
+    }
+
+    private static void enable(QuicChannel channel) {
+        File dir = new File(DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            logger.warn("⚠️ qlog directory " + dir.getAbsolutePath() + " cannot be created");
+            return;
+        }
+        String name = System.currentTimeMillis() + "-" + channel.id().asShortText() + ".qlog";
+        String path = new File(dir, name).getAbsolutePath();
+        channel.config().setOption(QuicChannelOption.QLOG,
+                new QLogConfiguration(path, "webtransport4j", String.valueOf(channel.remoteSocketAddress())));
+        TRACED.incrementAndGet();
+        startPruner();
+        logger.info("🛰️ qlog for " + channel.remoteSocketAddress() + " -> " + path);
+    }
+
+    private static void startPruner() {
+        if (pruner != null || MAX_BYTES <= 0) {
+            return;
+        }
+        synchronized (QlogTracer.class) {
+            if (pruner == null) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                        new DefaultThreadFactory("wt-qlog-pruner", true));
+                executor.scheduleWithFixedDelay(QlogTracer::prune, PRUNE_INTERVAL_SECONDS, PRUNE_INTERVAL_SECONDS,
+                        TimeUnit.SECONDS);
+                pruner = executor;
+            }
+        }
+    }
+
+    // Deletes the oldest traces until the directory fits in MAX_BYTES again
+    static void prune() {
+        File[] files = new File(DIR).listFiles((d, name) -> name.endsWith(".qlog"));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_BYTES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= MAX_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                logger.debug("🧹 qlog pruned " + file.getName());
+            }
+        }
+    }
+}
@@ -2,73 +2,242 @@ package io.github.webtransport4j.incubator;
 
 import org.apache.log4j.Logger;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.util.Timeout;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Consumes the {@code [stream type][session ID]} header of a raw WebTransport stream and forwards the payload.
+ * <p>
+ * The header varints are decoded incrementally, so a header split across any number of reads (down to one
+ * byte each) is neither lost nor copied: the bytes already seen live in the decoder state. The rest of the read
+ * that completes the header is passed on as is (reader index advanced), and the stream is bound to its
+ * {@link WebTransportSession} right then.
+ * <p>
+ * A stream may overtake the CONNECT request of its session. If the session is not registered yet, reads are
+ * paused and what already arrived is held (up to {@code webtransport4j.session.maxBufferedStreamBytes}) until
+ * the session shows up; a stream that exceeds that, waits longer than
+ * {@code webtransport4j.session.bufferedStreamTimeoutMs} or does not fit in the connection's
+ * {@code webtransport4j.session.maxBufferedStreams} is reset with {@link #WT_BUFFERED_STREAM_REJECTED}. No
+ * payload ever leaves this handler without being charged to a session.
+ */
 public class RawWebTransportHandler extends ChannelInboundHandlerAdapter {
     private static final Logger logger = Logger.getLogger(RawWebTransportHandler.class.getName());
-    
-    // Track state per handler instance (per stream)
-    private boolean protocolHeaderConsumed = false;
+
+    // Error code for a stream whose session never showed up (draft-ietf-webtrans-http3)
+    public static final int WT_BUFFERED_STREAM_REJECTED = 0x3994bd84;
+
+    static final int MAX_BUFFERED_STREAM_BYTES =
+            Integer.getInteger("webtransport4j.session.maxBufferedStreamBytes", 64 * 1024);
+    static final long BUFFERED_STREAM_TIMEOUT_MS =
+            Long.getLong("webtransport4j.session.bufferedStreamTimeoutMs", 1_000);
+
+    // Track state per handler instance (per stream); knownType is -1 unless the codec already read the type
+    private final long knownType;
+    private final VarIntDecoder typeDecoder = new VarIntDecoder();
+    private final VarIntDecoder sessionIdDecoder = new VarIntDecoder();
+    private boolean protocolHeaderConsumed;
+    private WebTransportSession session;
+
+    // Waiting for the session: input held back (reads paused), the deadline and our registration
+    private ArrayDeque<ByteBuf> held;
+    private int heldBytes;
+    private Timeout heldDeadline;
+    private Consumer<WebTransportSession> waiter;
+
+    /**
+     * For a client-initiated bidirectional stream: the header starts with the {@code 0x41} signal.
+     */
+    public RawWebTransportHandler() {
+        this(-1);
+    }
+
+    /**
+     * For a stream whose type the HTTP/3 codec already consumed (unidirectional {@code 0x54}): only the
+     * session ID is left to read.
+     */
+    public RawWebTransportHandler(long streamType) {
+        this.knownType = streamType;
+    }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        if (ctx.channel() instanceof io.netty.handler.codec.quic.QuicStreamChannel) {
-        long streamId = ((io.netty.handler.codec.quic.QuicStreamChannel) ctx.channel()).streamId();
-    
-        if (streamId == 0) {
-            ctx.fireChannelRead(msg);
-            return;
-        }
-    }
         if (!(msg instanceof ByteBuf)) {
             ctx.fireChannelRead(msg);
             return;
         }
         ByteBuf data = (ByteBuf) msg;
-       
+
         if (!protocolHeaderConsumed) {
-        
-            if (data.readableBytes() < 2) {
+            // 1. Header: whatever part of it this read carries
+            if ((knownType < 0 && !typeDecoder.decode(data)) || !sessionIdDecoder.decode(data)) {
+                data.release();
+                return;
+            }
+            protocolHeaderConsumed = true;
+            long streamType = knownType >= 0 ? knownType : typeDecoder.value();
+            if (!onHeader(ctx, streamType, sessionIdDecoder.value())) {
+                data.release();
                 return;
             }
+        }
 
-           
-            data.markReaderIndex();
-
-            try {
-                
-                long streamType = WebTransportUtils.readVariableLengthInt(data);
-                long sessionId = WebTransportUtils.readVariableLengthInt(data);
-                
-               if (streamType == 0x41) {
-            logger.info("🆕 Client Initiated BIDIRECTIONAL Stream | Session: " + sessionId + " | StreamID: " + ctx.channel().id());
-        } else if (streamType == 0x54) {
-            logger.info("➡️ Client Initiated UNIDIRECTIONAL Stream | Session: " + sessionId);
-        } else {
+        if (!data.isReadable()) {
+            data.release();
+            return;
+        }
+        if (waiter != null) {
+            hold(ctx, data);
+            return;
+        }
+        if (session == null) {
+            // Rejected, the reset is on its way
+            data.release();
+            return;
+        }
+        forward(ctx, data);
+    }
+
+    // 2. Payload: charged against the session window, then handed on untouched
+    private boolean forward(ChannelHandlerContext ctx, ByteBuf data) {
+        if (!session.onDataReceived(data.readableBytes())) {
+            data.release();
+            return false;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("   -> Firing Body (" + data.readableBytes() + " bytes) to App Layer...");
+        }
+        ctx.fireChannelRead(data); //message dispatcher
+        return true;
+    }
+
+    /**
+     * @return {@code false} if the stream was refused by its session or rejected
+     */
+    private boolean onHeader(ChannelHandlerContext ctx, long streamType, long sessionId) {
+        Channel channel = ctx.channel();
+        if (streamType != WebTransportStreamDemux.WT_BIDI_SIGNAL && streamType != WebTransportUtils.UNI_STREAM_TYPE) {
             logger.warn("❓ Unknown Stream Type: " + streamType);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("🆕 Client Initiated " + (streamType == WebTransportUtils.UNI_STREAM_TYPE
+                    ? "UNIDIRECTIONAL" : "BIDIRECTIONAL") + " Stream | Session: " + sessionId
+                    + " | StreamID: " + channel.id());
+        }
+        channel.attr(WebTransportUtils.STREAM_TYPE_KEY).set(streamType);
+        channel.attr(WebTransportUtils.SESSION_ID_KEY).set(sessionId);
+
+        WebTransportSessionManager mgr = manager(channel);
+        session = mgr != null ? mgr.get(sessionId) : null;
+        if (session != null) {
+            return !(channel instanceof QuicStreamChannel) || session.onPeerStream((QuicStreamChannel) channel);
+        }
+
+        // 3. Not (yet) known. Session IDs are client-initiated bidirectional stream IDs; anything else never
+        // will be one
+        if (mgr == null || (sessionId & 0x3) != 0) {
+            reject(ctx, "references invalid Session " + sessionId);
+            return false;
+        }
+        Consumer<WebTransportSession> w = s -> onSessionRegistered(ctx, s);
+        if (!mgr.await(sessionId, w)) {
+            reject(ctx, "references unknown Session " + sessionId + ", too many streams buffered");
+            return false;
+        }
+        waiter = w;
+        held = new ArrayDeque<>(2);
+        channel.config().setAutoRead(false);
+        heldDeadline = SessionTimers.schedule(channel, () -> {
+            if (waiter == w) {
+                mgr.cancelAwait(sessionId, w);
+                reject(ctx, "waited " + BUFFERED_STREAM_TIMEOUT_MS + "ms for unknown Session " + sessionId);
+            }
+        }, BUFFERED_STREAM_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (logger.isDebugEnabled()) {
+            logger.debug("⏳ Stream " + channel.id() + " waits for unknown Session " + sessionId);
         }
-                ctx.channel().attr(WebTransportUtils.STREAM_TYPE_KEY).set(streamType);
-                ctx.channel().attr(WebTransportUtils.SESSION_ID_KEY).set(sessionId);
-                
-                logger.debug("✅ Protocol Header Consumed | Type: " + streamType + " Session: " + sessionId);
-                protocolHeaderConsumed = true;
+        return true;
+    }
+
+    private void hold(ChannelHandlerContext ctx, ByteBuf data) {
+        heldBytes += data.readableBytes();
+        held.add(data);
+        if (heldBytes > MAX_BUFFERED_STREAM_BYTES) {
+            manager(ctx.channel()).cancelAwait(sessionIdDecoder.value(), waiter);
+            reject(ctx, "buffered " + heldBytes + " bytes for unknown Session " + sessionIdDecoder.value());
+        }
+    }
 
-            } catch (Exception e) {
-                // If we ran out of bytes while reading the VarInts, reset and wait
-                data.resetReaderIndex();
+    // Called by the session manager on the event loop, when the session registers
+    private void onSessionRegistered(ChannelHandlerContext ctx, WebTransportSession registered) {
+        ArrayDeque<ByteBuf> input = held;
+        stopWaiting();
+        if (ctx.channel() instanceof QuicStreamChannel
+                && !registered.onPeerStream((QuicStreamChannel) ctx.channel())) {
+            releaseAll(input);
+            return;
+        }
+        session = registered;
+        ByteBuf data;
+        while ((data = input.poll()) != null) {
+            if (!forward(ctx, data)) {
+                releaseAll(input);
                 return;
             }
         }
+        ctx.channel().config().setAutoRead(true);
+    }
 
-       
-        if (!data.isReadable()) {
-            data.release();
+    private void reject(ChannelHandlerContext ctx, String reason) {
+        ArrayDeque<ByteBuf> input = held;
+        stopWaiting();
+        releaseAll(input);
+        if (logger.isDebugEnabled()) {
+            logger.debug("🚫 Rejecting stream " + ctx.channel().id() + ": " + reason);
+        }
+        WebTransportUtils.resetStream(ctx.channel(), WT_BUFFERED_STREAM_REJECTED);
+    }
+
+    private void stopWaiting() {
+        waiter = null;
+        held = null;
+        heldBytes = 0;
+        if (heldDeadline != null) {
+            heldDeadline.cancel();
+            heldDeadline = null;
+        }
+    }
+
+    private static void releaseAll(ArrayDeque<ByteBuf> input) {
+        if (input == null) {
             return;
         }
+        ByteBuf data;
+        while ((data = input.poll()) != null) {
+            data.release();
+        }
+    }
 
-        logger.debug("   -> Firing Body (" + data.readableBytes() + " bytes) to App Layer...");
-        
-        ctx.fireChannelRead(data); //message dispatcher
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        if (waiter != null) {
+            WebTransportSessionManager mgr = manager(ctx.channel());
+            if (mgr != null) {
+                mgr.cancelAwait(sessionIdDecoder.value(), waiter);
+            }
+            ArrayDeque<ByteBuf> input = held;
+            stopWaiting();
+            releaseAll(input);
+        }
+    }
+
+    private static WebTransportSessionManager manager(Channel stream) {
+        Channel parent = stream.parent();
+        return parent != null ? parent.attr(WebTransportSessionManager.WT_SESSION_MGR).get() : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.handler.codec.quic.EpollQuicUtils;
+import io.netty.handler.codec.quic.SegmentedDatagramPacketAllocator;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * UDP GSO for QUIC egress: the codec packs up to {@link #maxNumSegments()} equally sized QUIC packets for the
+ * same peer into one segmented datagram, which the kernel splits on the way out. One {@code sendmsg} (or one
+ * {@code sendmmsg} slot) then carries many packets. Wraps the epoll allocator and counts how well that works.
+ * <p>
+ * Configured with {@code -Dwebtransport4j.egress.gso} (default on) and {@code webtransport4j.egress.maxSegments}.
+ */
+public final class SegmentedEgressAllocator implements SegmentedDatagramPacketAllocator {
+
+    static final boolean GSO_ENABLED = Boolean.parseBoolean(System.getProperty("webtransport4j.egress.gso", "true"));
+    static final int MAX_SEGMENTS = Integer.getInteger("webtransport4j.egress.maxSegments", 10);
+
+    private static final LongAdder PACKETS = new LongAdder();
+    private static final LongAdder SEGMENTS = new LongAdder();
+
+    private final SegmentedDatagramPacketAllocator delegate;
+
+    private SegmentedEgressAllocator(SegmentedDatagramPacketAllocator delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns a counting GSO allocator, or {@link SegmentedDatagramPacketAllocator#NONE} when GSO is disabled or
+     * the kernel / native transport does not support segmented sends.
+     */
+    public static SegmentedDatagramPacketAllocator newAllocator() {
+        if (!GSO_ENABLED) {
+            return NONE;
+        }
+        SegmentedDatagramPacketAllocator epoll = EpollQuicUtils.newSegmentedAllocator(MAX_SEGMENTS);
+        return epoll == NONE ? NONE : new SegmentedEgressAllocator(epoll);
+    }
+
+    @Override
+    public int maxNumSegments() {
+        return delegate.maxNumSegments();
+    }
+
+    @Override
+    public DatagramPacket newPacket(ByteBuf buffer, int segmentSize, InetSocketAddress remoteAddress) {
+        PACKETS.increment();
+        SEGMENTS.add((buffer.readableBytes() + segmentSize - 1) / segmentSize);
+        return delegate.newPacket(buffer, segmentSize, remoteAddress);
+    }
+
+    /**
+     * Segmented datagrams handed to the socket, each one a single send syscall slot.
+     */
+    public static long segmentedPackets() {
+        return PACKETS.sum();
+    }
+
+    /**
+     * QUIC packets carried by those segmented datagrams.
+     */
+    public static long segments() {
+        return SEGMENTS.sum();
+    }
+
+    public static double averageSegmentsPerSend() {
+        long packets = PACKETS.sum();
+        return packets == 0 ? 0 : (double) SEGMENTS.sum() / packets;
+    }
+}
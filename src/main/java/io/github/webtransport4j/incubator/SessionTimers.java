@@ -0,0 +1,112 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.channel.Channel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * One process-wide hashed-wheel timer for session heartbeats, idle timeouts and handshake deadlines.
+ * <p>
+ * Scheduling and cancelling are O(1) and cost no event-loop work until a timer actually fires, so the
+ * overhead stays flat with the number of sessions. Precision is one tick
+ * ({@code -Dwebtransport4j.timer.tickMs}, default 100 ms), plenty for timeouts measured in seconds.
+ * Tasks always run on the event loop of the channel they were scheduled for, so they may touch the
+ * channel's state without synchronisation.
+ */
+public final class SessionTimers {
+    private static final Logger logger = Logger.getLogger(SessionTimers.class.getName());
+
+    static final long TICK_MS = Long.getLong("webtransport4j.timer.tickMs", 100);
+    static final int WHEEL_SIZE = Integer.getInteger("webtransport4j.timer.wheelSize", 512);
+
+    private static final Timer TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("wt-timer", true), TICK_MS, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+
+    private SessionTimers() {
+    }
+
+    /**
+     * Runs {@code task} once on {@code channel}'s event loop after {@code delay}, unless cancelled first.
+     */
+    public static Timeout schedule(Channel channel, Runnable task, long delay, TimeUnit unit) {
+        return TIMER.newTimeout(timeout -> runOnLoop(channel, task), delay, unit);
+    }
+
+    /**
+     * Runs {@code task} on {@code channel}'s event loop every {@code period} until cancelled or the channel
+     * closes. Each run is scheduled after the previous one was started, so a stalled loop does not pile
+     * up runs.
+     */
+    public static Repeating every(Channel channel, Runnable task, long period, TimeUnit unit) {
+        Repeating repeating = new Repeating(channel, task, unit.toNanos(period));
+        repeating.scheduleNext();
+        channel.closeFuture().addListener(f -> repeating.cancel());
+        return repeating;
+    }
+
+    private static void runOnLoop(Channel channel, Runnable task) {
+        if (!channel.isRegistered()) {
+            return;
+        }
+        try {
+            channel.eventLoop().execute(task);
+        } catch (RejectedExecutionException e) {
+            // Event loop is shutting down, the channel goes with it
+            logger.debug("⏰ Timer task dropped, event loop is shutting down: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handle of a task scheduled with {@link #every}.
+     */
+    public static final class Repeating {
+        private final Channel channel;
+        private final Runnable task;
+        private final long periodNanos;
+        private volatile Timeout timeout;
+        private volatile boolean cancelled;
+
+        private Repeating(Channel channel, Runnable task, long periodNanos) {
+            this.channel = channel;
+            this.task = task;
+            this.periodNanos = periodNanos;
+        }
+
+        private void scheduleNext() {
+            if (cancelled) {
+                return;
+            }
+            timeout = TIMER.newTimeout(t -> runOnLoop(channel, this::run), periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                scheduleNext();
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+            Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Resumable QUIC variable-length integer decoder (RFC 9000, section 16).
+ * <p>
+ * Unlike {@link WebTransportUtils#readVariableLengthInt(ByteBuf)}, a varint that is split across reads is not
+ * re-parsed: the bytes seen so far are kept in the decoder state, and every byte is read exactly once.
+ * Allocation free; reuse one instance per field and {@link #reset()} it between values.
+ * Not thread-safe (meant to live in a per-stream handler).
+ */
+public final class VarIntDecoder {
+
+    // Bytes still missing for the current value; -1 while idle (nothing consumed yet)
+    private int remaining = -1;
+    private long value;
+
+    /**
+     * Consumes the bytes of the current varint that are available in {@code in}.
+     *
+     * @return {@code true} once the value is complete (it stays complete until {@link #reset()})
+     */
+    public boolean decode(ByteBuf in) {
+        if (remaining == 0) {
+            return true;
+        }
+        if (remaining < 0) {
+            if (!in.isReadable()) {
+                return false;
+            }
+            int first = in.getUnsignedByte(in.readerIndex());
+            int length = 1 << (first >> 6);
+            if (in.readableBytes() >= length) {
+                // Fast path: the whole varint is in this buffer
+                value = WebTransportUtils.readVariableLengthInt(in);
+                remaining = 0;
+                return true;
+            }
+            in.skipBytes(1);
+            value = first & 0x3F;
+            remaining = length - 1;
+        }
+        while (remaining > 0 && in.isReadable()) {
+            value = (value << 8) | in.readUnsignedByte();
+            remaining--;
+        }
+        return remaining == 0;
+    }
+
+    public boolean isComplete() {
+        return remaining == 0;
+    }
+
+    /**
+     * True once at least one byte of the current value was consumed.
+     */
+    public boolean isStarted() {
+        return remaining >= 0;
+    }
+
+    /**
+     * The decoded value; only meaningful once {@link #decode(ByteBuf)} returned {@code true}.
+     */
+    public long value() {
+        return value;
+    }
+
+    public void reset() {
+        remaining = -1;
+        value = 0;
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http3.DefaultHttp3DataFrame;
+import io.netty.handler.codec.http3.Http3DataFrame;
+
+/**
+ * Capsule types (RFC 9297 and draft-ietf-webtrans-http3 / -http2) and encoders for the capsules the server
+ * sends on a session's CONNECT stream. Encoded capsules are wrapped in an {@link Http3DataFrame}.
+ */
+public final class WebTransportCapsules {
+
+    public static final long DATAGRAM = 0x00;
+    public static final long CLOSE_WEBTRANSPORT_SESSION = 0x2843;
+    public static final long DRAIN_WEBTRANSPORT_SESSION = 0x78ae;
+
+    // Only meaningful for WebTransport over HTTP/2, where streams are announced as capsules
+    public static final long WT_STREAM = 0x190B4D3A;
+    public static final long WT_STREAM_FIN = 0x190B4D3B;
+
+    public static final long WT_MAX_DATA = 0x190B4D3D;
+    public static final long WT_MAX_STREAM_DATA = 0x190B4D3E;
+    public static final long WT_MAX_STREAMS_BIDI = 0x190B4D3F;
+    public static final long WT_MAX_STREAMS_UNI = 0x190B4D40;
+    public static final long WT_DATA_BLOCKED = 0x190B4D41;
+    public static final long WT_STREAM_DATA_BLOCKED = 0x190B4D42;
+    public static final long WT_STREAMS_BLOCKED_BIDI = 0x190B4D43;
+    public static final long WT_STREAMS_BLOCKED_UNI = 0x190B4D44;
+
+    // The application error message of CLOSE_WEBTRANSPORT_SESSION is limited to 1024 bytes
+    static final int MAX_CLOSE_MESSAGE_BYTES = 1024;
+
+    private WebTransportCapsules() {
+    }
+
+    /**
+     * CLOSE_WEBTRANSPORT_SESSION carrying a 32-bit application error code and a UTF-8 reason.
+     */
+    public static Http3DataFrame closeSession(ByteBufAllocator alloc, long errorCode, String reason) {
+        String message = reason == null ? "" : reason;
+        int maxMessageBytes = Math.min(ByteBufUtil.utf8MaxBytes(message), MAX_CLOSE_MESSAGE_BYTES);
+        ByteBuf buf = alloc.directBuffer(16 + maxMessageBytes);
+        WebTransportUtils.writeVarInt(buf, CLOSE_WEBTRANSPORT_SESSION);
+        int lengthIndex = buf.writerIndex();
+        // Length placeholder, patched once the message size is known
+        buf.writeShort(0);
+        int start = buf.writerIndex();
+        buf.writeInt((int) errorCode);
+        ByteBufUtil.writeUtf8(buf, message);
+        if (buf.writerIndex() - start - 4 > MAX_CLOSE_MESSAGE_BYTES) {
+            // Cut on a character boundary: back off while the first dropped byte continues a character
+            int cut = start + 4 + MAX_CLOSE_MESSAGE_BYTES;
+            while ((buf.getByte(cut) & 0xC0) == 0x80) {
+                cut--;
+            }
+            buf.writerIndex(cut);
+        }
+        WebTransportUtils.setVarInt(buf, lengthIndex, buf.writerIndex() - start, 2);
+        return new DefaultHttp3DataFrame(buf);
+    }
+
+    public static Http3DataFrame drainSession(ByteBufAllocator alloc) {
+        ByteBuf buf = alloc.directBuffer(4);
+        WebTransportUtils.writeVarInts(buf, DRAIN_WEBTRANSPORT_SESSION, 0);
+        return new DefaultHttp3DataFrame(buf);
+    }
+
+    /**
+     * A capsule whose value is a single varint (WT_MAX_DATA, WT_MAX_STREAMS_*, WT_*_BLOCKED).
+     */
+    public static Http3DataFrame varIntCapsule(ByteBufAllocator alloc, long type, long value) {
+        int valueLength = WebTransportUtils.varIntLength(value);
+        ByteBuf buf = alloc.directBuffer(WebTransportUtils.varIntLength(type) + 1 + valueLength);
+        WebTransportUtils.writeVarInts(buf, type, valueLength);
+        WebTransportUtils.writeVarInt(buf, value);
+        return new DefaultHttp3DataFrame(buf);
+    }
+}
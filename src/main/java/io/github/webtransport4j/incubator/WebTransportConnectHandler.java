@@ -0,0 +1,164 @@
+package io.github.webtransport4j.incubator;
+
+import io.github.webtransport4j.incubator.applayer.StreamSender;
+import io.github.webtransport4j.incubator.metrics.WebTransportMetrics;
+import io.github.webtransport4j.incubator.routing.RouteHandler;
+import io.github.webtransport4j.incubator.routing.Router;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http3.DefaultHttp3Headers;
+import io.netty.handler.codec.http3.DefaultHttp3HeadersFrame;
+import io.netty.handler.codec.http3.Http3DataFrame;
+import io.netty.handler.codec.http3.Http3Headers;
+import io.netty.handler.codec.http3.Http3HeadersFrame;
+import io.netty.handler.codec.http3.Http3RequestStreamInboundHandler;
+import io.netty.handler.codec.http3.Http3UnknownFrame;
+import io.netty.handler.codec.quic.QuicChannel;
+import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Handles the extended CONNECT (:protocol webtransport) request stream. The path is matched against the
+ * {@link Router} once, here: no matching route is answered with 404, otherwise the session is registered with
+ * the route's handler. Once the session is accepted, the DATA frames of this stream carry capsules, which are
+ * parsed incrementally and applied to the {@link WebTransportSession}. The session ends when the peer closes it
+ * or the CONNECT stream goes away.
+ */
+public class WebTransportConnectHandler extends Http3RequestStreamInboundHandler implements CapsuleDecoder.Listener {
+    private static final Logger logger = Logger.getLogger(WebTransportConnectHandler.class.getName());
+
+    private final Router router;
+    private WebTransportSession session;
+    private CapsuleDecoder capsuleDecoder;
+
+    public WebTransportConnectHandler(Router router) {
+        this.router = router;
+    }
+
+    @Override
+    protected void channelRead(ChannelHandlerContext ctx, Http3HeadersFrame frame) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("=== [DEBUG] Received HTTP/3 Headers ===");
+
+            // Loop through all headers and print them
+            for (Map.Entry<CharSequence, CharSequence> header : frame.headers()) {
+                logger.debug(header.getKey() + ": " + header.getValue());
+            }
+
+            logger.debug("=======================================");
+            logger.debug("📜 HTTP/3 Headers Received: " + frame.headers().path());
+        }
+        CharSequence path = frame.headers().path();
+        CharSequence method = frame.headers().method();
+        CharSequence protocol = frame.headers().get(":protocol");
+
+        if (session == null && "CONNECT".contentEquals(method) && "webtransport".contentEquals(protocol)) {
+            RouteHandler handler = router.match(path);
+            if (handler == null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("🚫 No route for Path: " + path);
+                }
+                Http3Headers notFound = new DefaultHttp3Headers();
+                notFound.status("404");
+                ctx.writeAndFlush(new DefaultHttp3HeadersFrame(notFound)).addListener(QuicStreamChannel.SHUTDOWN_OUTPUT);
+                ReferenceCountUtil.release(frame);
+                return;
+            }
+            QuicStreamChannel connectStream = (QuicStreamChannel) ctx.channel();
+            QuicChannel quic = connectStream.parent();
+            if (logger.isDebugEnabled()) {
+                logger.debug("✅ Handshake Success for Path: " + path);
+            }
+            Http3Headers responseHeaders = new DefaultHttp3Headers();
+            responseHeaders.status("200");
+            // PURE HTTP/3 Frame. No manual byte writing here!
+            ctx.writeAndFlush(new DefaultHttp3HeadersFrame(responseHeaders));
+            WebTransportSessionManager mgr = quic.attr(WebTransportSessionManager.WT_SESSION_MGR).get();
+            long handshakeNanos = mgr.handshakeNanos();
+            session = mgr.register(connectStream, path.toString(), handler);
+            WebTransportMetrics.sessionOpened(session.path(), handshakeNanos);
+            session.advertiseLimits();
+            capsuleDecoder = new CapsuleDecoder(this);
+            startPushDemo(quic, connectStream);
+        }
+        ReferenceCountUtil.release(frame);
+    }
+
+    @Override
+    protected void channelRead(ChannelHandlerContext ctx, Http3DataFrame frame) {
+        if (capsuleDecoder == null) {
+            ctx.fireChannelRead(frame);
+            return;
+        }
+        try {
+            capsuleDecoder.decode(frame.content(), ctx.alloc());
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Override
+    protected void channelRead(ChannelHandlerContext ctx, Http3UnknownFrame frame) {
+        ctx.fireChannelRead(frame);
+    }
+
+    @Override
+    public void onCapsule(long type, ByteBuf value) {
+        session.onCapsule(type, value);
+    }
+
+    @Override
+    protected void channelInputClosed(ChannelHandlerContext ctx) {
+        logger.debug("🔒 Stream Closed: " + ctx.channel().id());
+        if (capsuleDecoder != null && capsuleDecoder.isPartial()) {
+            logger.warn("⚠️ CONNECT stream ended inside a capsule, Session " + session.sessionStreamId);
+        }
+        ctx.close();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (capsuleDecoder != null) {
+            capsuleDecoder.release();
+        }
+        if (session != null) {
+            // A CONNECT stream that is gone takes its session with it (clean close, reset or connection loss)
+            session.terminate();
+        }
+        super.channelInactive(ctx);
+    }
+
+    private static void startPushDemo(QuicChannel quic, QuicStreamChannel connectStream) {
+        long sessionId = connectStream.streamId();
+
+        // Trigger server initiated uni-stream
+        logger.debug("⏰ Creating Server-Push Stream for Session " + sessionId);
+        logger.debug("⏳ Creating Push Stream...");
+        String key = "key";
+        WebTransportUtils.createUniStream(quic, sessionId, key)
+                .addListener((Future<StreamSender> future) -> {
+                    if (future.isSuccess()) {
+                        logger.debug("🚀 Push Stream Ready!");
+
+                        // this is for testing, remove this, just poc
+
+                        StreamSender sender = future.getNow();
+                        // Shared wheel timer instead of one scheduled task per session; stops with the stream
+                        SessionTimers.every(connectStream, () -> sender.send(String.valueOf(System.nanoTime())),
+                                1, TimeUnit.SECONDS);
+
+                        // Closing the push stream cancels its topic subscription;
+                        // other sessions subscribed to the same key are untouched
+                        connectStream.closeFuture().addListener(f -> sender.close());
+                    } else {
+                        logger.warn("❌ Push stream failed", future.cause());
+                    }
+                });
+    }
+}
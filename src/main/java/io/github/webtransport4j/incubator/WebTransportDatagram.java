@@ -0,0 +1,28 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * A datagram payload (quarter stream ID already stripped) together with the session it belongs to, passed
+ * from {@link WebTransportDatagramHandler} to {@link MessageDispatcher} for sessions without a
+ * {@link WebTransportSession.DatagramHandler}.
+ */
+public class WebTransportDatagram extends DefaultByteBufHolder {
+
+    private final WebTransportSession session;
+
+    public WebTransportDatagram(WebTransportSession session, ByteBuf content) {
+        super(content);
+        this.session = session;
+    }
+
+    public WebTransportSession session() {
+        return session;
+    }
+
+    @Override
+    public WebTransportDatagram replace(ByteBuf content) {
+        return new WebTransportDatagram(session, content);
+    }
+}
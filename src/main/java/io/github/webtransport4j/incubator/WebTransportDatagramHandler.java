@@ -4,14 +4,88 @@ import org.apache.log4j.Logger;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 
-public class WebTransportDatagramHandler extends SimpleChannelInboundHandler<ByteBuf> {
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Datagram demultiplexer on the QUIC connection pipeline.
+ * <p>
+ * Every HTTP/3 datagram starts with the quarter stream ID of its session (CONNECT stream ID / 4). We strip it,
+ * find the owning {@link WebTransportSession} and, if the session has a
+ * {@link WebTransportSession.DatagramHandler}, call it right here on the event loop: no executor hop, no
+ * attribute lookups. The last session is cached, so the common one-session-per-connection case does not even
+ * touch the session map. Sessions without a handler fall back to the next handler in the pipeline
+ * ({@link MessageDispatcher}), which receives the bare payload with its session as a {@link WebTransportDatagram}
+ * and runs the session's route handler. Datagrams for unknown sessions are dropped and counted.
+ */
+public class WebTransportDatagramHandler extends ChannelInboundHandlerAdapter {
     private static final Logger logger = Logger.getLogger(WebTransportDatagramHandler.class.getName());
 
+    private static final LongAdder DELIVERED = new LongAdder();
+    private static final LongAdder DROPPED = new LongAdder();
+
+    private WebTransportSessionManager manager;
+    private WebTransportSession lastSession;
+
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
-        logger.debug("☄️ DatagramHandler received data");
-        ctx.fireChannelRead(msg.retain());
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        ByteBuf data = (ByteBuf) msg;
+        long quarterStreamId = WebTransportUtils.readVariableLengthInt(data);
+        WebTransportSession session = quarterStreamId < 0 ? null : lookup(ctx, quarterStreamId << 2);
+        if (session == null) {
+            DROPPED.increment();
+            if (manager != null) {
+                manager.droppedDatagrams++;
+            }
+            data.release();
+            return;
+        }
+
+        session.touch();
+        WebTransportSession.DatagramHandler handler = session.datagramHandler();
+        if (handler == null) {
+            ctx.fireChannelRead(new WebTransportDatagram(session, data));
+            return;
+        }
+        DELIVERED.increment();
+        try {
+            handler.onDatagram(session, data);
+        } catch (Throwable t) {
+            logger.error("Datagram handler failed for session " + session.sessionStreamId, t);
+        } finally {
+            data.release();
+        }
+    }
+
+    private WebTransportSession lookup(ChannelHandlerContext ctx, long sessionId) {
+        WebTransportSession session = lastSession;
+        if (session != null && session.sessionStreamId == sessionId && session.isActive()) {
+            return session;
+        }
+        if (manager == null) {
+            manager = ctx.channel().attr(WebTransportSessionManager.WT_SESSION_MGR).get();
+            if (manager == null) {
+                return null;
+            }
+        }
+        session = manager.get(sessionId);
+        lastSession = session;
+        return session;
+    }
+
+    public static long deliveredDatagrams() {
+        return DELIVERED.sum();
+    }
+
+    /**
+     * Datagrams dropped because their quarter stream ID did not map to a live session.
+     */
+    public static long droppedDatagrams() {
+        return DROPPED.sum();
     }
 }
@@ -0,0 +1,127 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http3.Http3ErrorCode;
+
+import java.util.List;
+
+/**
+ * Optional message framing for WebTransport streams: every message is prefixed with its length
+ * as a QUIC varint ({@link WebTransportUtils#writeVarInt}).
+ * <p>
+ * QUIC splits and merges reads freely, so one {@link ByteBuf} is not one message. This decoder rebuilds
+ * whole messages: when a message already sits inside one read it is emitted as a retained slice (no copy);
+ * when it straddles reads the pieces are gathered in a {@link io.netty.buffer.CompositeByteBuf}, again
+ * without copying. Messages above the streaming threshold are not buffered at all but handed downstream
+ * as {@link WebTransportMessageChunk}s as they arrive.
+ * <p>
+ * Enabled with {@code -Dwebtransport4j.framing=true}; see also {@code webtransport4j.framing.maxMessageSize}
+ * and {@code webtransport4j.framing.streamingThreshold} (0 disables streaming).
+ */
+public class WebTransportFrameDecoder extends ByteToMessageDecoder {
+
+    public static final boolean ENABLED = Boolean.getBoolean("webtransport4j.framing");
+
+    static final int DEFAULT_MAX_MESSAGE_SIZE =
+            Integer.getInteger("webtransport4j.framing.maxMessageSize", 16 * 1024 * 1024);
+    static final int DEFAULT_STREAMING_THRESHOLD =
+            Integer.getInteger("webtransport4j.framing.streamingThreshold", 0);
+
+    private final int maxMessageSize;
+    private final int streamingThreshold;
+
+    // Streaming state: bytes of the current oversized message still to be forwarded
+    private long streamingLength;
+    private long streamingRemaining;
+    private boolean discarding;
+
+    public WebTransportFrameDecoder() {
+        this(DEFAULT_MAX_MESSAGE_SIZE, DEFAULT_STREAMING_THRESHOLD);
+    }
+
+    /**
+     * @param maxMessageSize     largest accepted message, a bigger prefix resets the stream
+     * @param streamingThreshold messages larger than this are forwarded in chunks, {@code 0} to always buffer
+     */
+    public WebTransportFrameDecoder(int maxMessageSize, int streamingThreshold) {
+        if (maxMessageSize <= 0) {
+            throw new IllegalArgumentException("maxMessageSize must be > 0: " + maxMessageSize);
+        }
+        this.maxMessageSize = maxMessageSize;
+        this.streamingThreshold = streamingThreshold;
+        // Straddling messages are stitched together instead of being copied into one buffer
+        setCumulator(COMPOSITE_CUMULATOR);
+    }
+
+    /**
+     * Adds the decoder and the matching {@link WebTransportFrameEncoder} if framing is enabled.
+     */
+    public static void addIfEnabled(ChannelPipeline pipeline) {
+        if (ENABLED) {
+            pipeline.addLast(new WebTransportFrameDecoder(), WebTransportFrameEncoder.INSTANCE);
+        }
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (discarding) {
+            // Discarded input still counts as consumed for session flow control
+            WebTransportSession.consumedOutOfBand(ctx.channel(), in.readableBytes());
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        if (streamingRemaining > 0) {
+            int n = (int) Math.min(streamingRemaining, in.readableBytes());
+            if (n == 0) {
+                return;
+            }
+            streamingRemaining -= n;
+            out.add(new WebTransportMessageChunk(in.readRetainedSlice(n), streamingLength, streamingRemaining == 0));
+            return;
+        }
+
+        // 1. Length prefix: wait until the whole varint is there
+        if (!in.isReadable()) {
+            return;
+        }
+        int start = in.readerIndex();
+        int prefixLength = 1 << (in.getUnsignedByte(start) >> 6);
+        if (in.readableBytes() < prefixLength) {
+            return;
+        }
+        long length = WebTransportUtils.readVariableLengthInt(in);
+
+        if (length > maxMessageSize) {
+            // We can no longer find message boundaries on this stream: reset it, and drop whatever is
+            // still in flight until the close completes
+            discarding = true;
+            WebTransportSession.consumedOutOfBand(ctx.channel(), in.readableBytes() + prefixLength);
+            in.skipBytes(in.readableBytes());
+            WebTransportUtils.resetStream(ctx.channel(), Http3ErrorCode.H3_MESSAGE_ERROR.code());
+            throw new TooLongFrameException("WebTransport message of " + length
+                    + " bytes exceeds the limit of " + maxMessageSize);
+        }
+
+        // 2. Oversized: switch to streaming, chunks are emitted by the next decode() round
+        if (streamingThreshold > 0 && length > streamingThreshold) {
+            streamingLength = length;
+            streamingRemaining = length;
+            // Prefixes never reach the application, so their flow-control credit is returned right away
+            WebTransportSession.consumedOutOfBand(ctx.channel(), prefixLength);
+            return;
+        }
+
+        // 3. Whole message available: zero-copy slice of the read (or of the composite cumulation)
+        if (in.readableBytes() < length) {
+            in.readerIndex(start);
+            return;
+        }
+        out.add(in.readRetainedSlice((int) length));
+        WebTransportSession.consumedOutOfBand(ctx.channel(), prefixLength);
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
+
+/**
+ * Outbound half of {@link WebTransportFrameDecoder}: writes the varint length prefix in front of
+ * every outgoing {@link ByteBuf}. The payload itself is passed on untouched.
+ */
+@ChannelHandler.Sharable
+public class WebTransportFrameEncoder extends MessageToMessageEncoder<ByteBuf> {
+
+    public static final WebTransportFrameEncoder INSTANCE = new WebTransportFrameEncoder();
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+        ByteBuf prefix = ctx.alloc().directBuffer(8);
+        WebTransportUtils.writeVarInt(prefix, msg.readableBytes());
+        out.add(prefix);
+        out.add(msg.retain());
+    }
+}
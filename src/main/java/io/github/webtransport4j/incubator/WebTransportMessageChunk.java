@@ -0,0 +1,37 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * One piece of a length-prefixed message that was too large to buffer, emitted by
+ * {@link WebTransportFrameDecoder} in streaming mode. Chunks of a message arrive in order;
+ * the one with {@link #isLast()} set completes it.
+ */
+public class WebTransportMessageChunk extends DefaultByteBufHolder {
+
+    private final long messageLength;
+    private final boolean last;
+
+    public WebTransportMessageChunk(ByteBuf content, long messageLength, boolean last) {
+        super(content);
+        this.messageLength = messageLength;
+        this.last = last;
+    }
+
+    /**
+     * Total length of the message this chunk belongs to, as announced by its length prefix.
+     */
+    public long messageLength() {
+        return messageLength;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+
+    @Override
+    public WebTransportMessageChunk replace(ByteBuf content) {
+        return new WebTransportMessageChunk(content, messageLength, last);
+    }
+}
@@ -1,65 +1,98 @@
 package io.github.webtransport4j.incubator;
 
-import io.github.webtransport4j.incubator.applayer.ServerPushService;
+import io.github.webtransport4j.incubator.applayer.EchoHandler;
+import io.github.webtransport4j.incubator.capture.WireCapture;
+import io.github.webtransport4j.incubator.metrics.WebTransportMetrics;
+import io.github.webtransport4j.incubator.routing.Router;
 import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollIoHandler;
 import io.netty.channel.nio.NioIoHandler;
 import io.netty.channel.socket.nio.NioDatagramChannel;
-import io.netty.handler.codec.http3.DefaultHttp3Headers;
-import io.netty.handler.codec.http3.DefaultHttp3HeadersFrame;
+import io.netty.channel.unix.UnixChannelOption;
 import io.netty.handler.codec.http3.DefaultHttp3SettingsFrame;
 import io.netty.handler.codec.http3.Http3;
-import io.netty.handler.codec.http3.Http3DataFrame;
-import io.netty.handler.codec.http3.Http3Headers;
-import io.netty.handler.codec.http3.Http3HeadersFrame;
-import io.netty.handler.codec.http3.Http3RequestStreamInboundHandler;
 import io.netty.handler.codec.http3.Http3ServerConnectionHandler;
 import io.netty.handler.codec.http3.Http3Settings;
-import io.netty.handler.codec.http3.Http3UnknownFrame;
+import io.netty.handler.codec.quic.FlushStrategy;
 import io.netty.handler.codec.quic.InsecureQuicTokenHandler;
 import io.netty.handler.codec.quic.QuicChannel;
+import io.netty.handler.codec.quic.QuicChannelOption;
+import io.netty.handler.codec.quic.QuicCodecDispatcher;
+import io.netty.handler.codec.quic.QuicConnectionIdGenerator;
+import io.netty.handler.codec.quic.QuicServerCodecBuilder;
 import io.netty.handler.codec.quic.QuicSslContext;
 import io.netty.handler.codec.quic.QuicSslContextBuilder;
 import io.netty.handler.codec.quic.QuicStreamChannel;
-import io.netty.util.AttributeKey;
-import io.netty.util.ReferenceCountUtil;
+import io.netty.handler.codec.quic.SegmentedDatagramPacketAllocator;
+import io.netty.util.NettyRuntime;
 
 import java.io.File;
 import java.net.InetSocketAddress;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 
-import static io.github.webtransport4j.incubator.WebTransportUtils.readVariableLengthInt;
-
 public class WebTransportServer {
     private static final Logger logger = Logger.getLogger(WebTransportServer.class.getName());
     static final int PORT = 4433;
-    static final AttributeKey<String> SESSION_PATH_KEY = AttributeKey.valueOf("wt.session.path.key");
+    // The demo: every path gets the echo handler
+    static final Router DEFAULT_ROUTER = Router.builder().route("/**", EchoHandler.INSTANCE).build();
+
+    // Number of SO_REUSEPORT sockets / event loops for the QUIC listener (epoll only, otherwise 1)
+    static final int WORKERS = Integer.getInteger("webtransport4j.workers", NettyRuntime.availableProcessors());
+    // QUIC packets the codec may accumulate before flushing the socket (0 = Netty's default strategy)
+    static final int FLUSH_AFTER_PACKETS = Integer.getInteger("webtransport4j.egress.flushAfterPackets", 0);
 
     public static void main(String[] args) throws Exception {
         logger.debug("🚀 STARTING DEBUG SERVER...");
-        EventLoopGroup group = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
         QuicSslContext sslContext = QuicSslContextBuilder.forServer(
                 new File("/Users/sam/Documents/localhost-key.pem"),
                 null,
                 new File("/Users/sam/Documents/localhost.pem"))
                 .applicationProtocols(Http3.supportedApplicationProtocols())
                 .build();
+        List<Channel> listeners = start(sslContext, new InetSocketAddress(PORT));
+        logger.debug("✅ WebTransport server listening on " + PORT + " (" + listeners.size() + " socket(s))");
+        for (Channel listener : listeners) {
+            listener.closeFuture().sync();
+        }
+    }
+
+    /**
+     * Starts a server with the given certificate on {@code address} (port 0 picks a free port, see
+     * {@code localAddress()} of the returned listeners), routing every path to the demo echo handler.
+     * {@link #main} and the load generator both start the server this way.
+     *
+     * @param sslContext server context; its application protocols must include HTTP/3
+     * @return the bound UDP listeners, one per worker
+     */
+    public static List<Channel> start(QuicSslContext sslContext, InetSocketAddress address)
+            throws InterruptedException {
+        return start(sslContext, address, DEFAULT_ROUTER);
+    }
+
+    /**
+     * Like {@link #start(QuicSslContext, InetSocketAddress)}, with sessions routed by {@code router}; a
+     * CONNECT request whose path matches no route is answered with 404.
+     */
+    public static List<Channel> start(QuicSslContext sslContext, InetSocketAddress address, Router router)
+            throws InterruptedException {
+        WebTransportMetrics.registerMBean();
         Http3Settings settings = Http3Settings.defaultSettings()
                 .enableConnectProtocol(true)
                 .setenablewebtransport(true)
                 .enableH3Datagram(true);
-        ChannelHandler serverCodec = Http3.newQuicServerCodecBuilder()
-                .sslContext(sslContext)
+        QuicServerCodecBuilder codecBuilder = Http3.newQuicServerCodecBuilder()
+                .sslEngineProvider(QlogTracer.sslEngineProvider(sslContext))
                 .maxIdleTimeout(30, TimeUnit.SECONDS)
                 .initialMaxData(10_000_000)
                 .initialMaxStreamDataBidirectionalLocal(1_000_000)
@@ -72,17 +105,22 @@ public class WebTransportServer {
                 .handler(new ChannelInitializer<QuicChannel>() {
                     @Override
                     protected void initChannel(QuicChannel ch) {
-                        ch.pipeline().addFirst(new QuicGlobalSniffer("GLOBAL-CONN"));
-                        InetSocketAddress remote = (InetSocketAddress) ch.remoteSocketAddress();
-                        String ip = remote.getAddress().getHostAddress();
-                        int port = remote.getPort();
-                        String nettyId = ch.id().asShortText();
-                        // 2. PRINT NICE LOG
-                        logger.debug("\n🔌 NEW QUIC CONNECTION ESTABLISHED");
-                        logger.debug("    ├── 🌍 Remote IP:   " + ip);
-                        logger.debug("    ├── 🚪 Remote Port: " + port);
-                        logger.debug("    └── 🆔 Channel ID:  " + nettyId);
-                        ch.attr(WebTransportSessionManager.WT_SESSION_MGR).set(new WebTransportSessionManager());
+                        // 1. Wire capture, if this connection is sampled (no handler otherwise)
+                        WireCapture.onConnection(ch);
+                        if (logger.isDebugEnabled()) {
+                            InetSocketAddress remote = (InetSocketAddress) ch.remoteSocketAddress();
+                            String ip = remote.getAddress().getHostAddress();
+                            int port = remote.getPort();
+                            String nettyId = ch.id().asShortText();
+                            // 2. PRINT NICE LOG
+                            logger.debug("\n🔌 NEW QUIC CONNECTION ESTABLISHED");
+                            logger.debug("    ├── 🌍 Remote IP:   " + ip);
+                            logger.debug("    ├── 🚪 Remote Port: " + port);
+                            logger.debug("    └── 🆔 Channel ID:  " + nettyId);
+                        }
+                        WebTransportSessionManager sessionManager = new WebTransportSessionManager();
+                        ch.attr(WebTransportSessionManager.WT_SESSION_MGR).set(sessionManager);
+                        sessionManager.bind(ch);
                         ch.pipeline().addLast(new WebTransportDatagramHandler());
                         ch.pipeline().addLast(new MessageDispatcher());
                         //ch.pipeline().addLast(new WebTransportMessageDispatcher());
@@ -92,101 +130,13 @@ public class WebTransportServer {
                                     protected void initChannel(QuicStreamChannel stream) {
               ;                          // DEBUG: Print when a stream is created
                                         // logger.debug("🌊 Stream Created: " + stream.id());
-                                        QuicChannel quic = stream.parent();
-                                        WebTransportSessionManager mgr = quic
-                                                .attr(WebTransportSessionManager.WT_SESSION_MGR).get();
-                                        stream.pipeline().addFirst(new WebTransportDetectorHandler());
-                                        stream.pipeline().addLast(new RawWebTransportHandler());
-                                        stream.pipeline().addLast(new MessageDispatcher());
-                                        stream.pipeline().addLast(new Http3RequestStreamInboundHandler() {
-                                            @Override
-                                            protected void channelRead(ChannelHandlerContext ctx,
-                                                    Http3HeadersFrame frame) {
-                                                logger.debug("=== [DEBUG] Received HTTP/3 Headers ===");
-
-                                                // Loop through all headers and print them
-                                                for (Map.Entry<CharSequence, CharSequence> header : frame.headers()) {
-                                                    logger.debug(header.getKey() + ": " + header.getValue());
-                                                }
-
-                                                logger.debug("=======================================");
-                                                logger.debug("📜 HTTP/3 Headers Received: " + frame.headers().path());
-                                                CharSequence path = frame.headers().path();
-                                                CharSequence method = frame.headers().method();
-                                                CharSequence protocol = frame.headers().get(":protocol");
-
-                                                if ("CONNECT".contentEquals(method)
-                                                        && "webtransport".contentEquals(protocol)) {
-                                                    ctx.channel().parent().attr(SESSION_PATH_KEY).set(path.toString());
-                                                    logger.debug("✅ Handshake Success for Path: " + path);
-                                                    Http3Headers responseHeaders = new DefaultHttp3Headers();
-                                                    responseHeaders.status("200");
-                                                    // PURE HTTP/3 Frame. No manual byte writing here!
-                                                    ctx.writeAndFlush(new DefaultHttp3HeadersFrame(responseHeaders));
-                                                    mgr.register((QuicStreamChannel) ctx.channel());
-                                                    QuicStreamChannel connectStream = (QuicStreamChannel) ctx.channel();
-                                                    mgr.register(connectStream);
-                                                    long sessionId = connectStream.streamId();
-
-                                                    // Trigger server initiated uni-stream
-                                                    logger.debug(
-                                                            "⏰ Creating Server-Push Stream for Session " + sessionId);
-                                                    // new ServerPushService(quic, sessionId).startPushing();
-                                                    logger.debug("⏳ Creating Push Stream...");
-                                                    String key = "key";
-                                                    WebTransportUtils.createUniStream(quic, sessionId, key)
-                                                            .addListener(future -> {
-                                                                if (future.isSuccess()) {
-                                                                    logger.debug("🚀 Push Stream Ready!");
-
-                                                                    // this is for testing, remove this, just poc
-                                                                    
-                                                                    quic.eventLoop().scheduleAtFixedRate(() -> {
-                                                                        if (connectStream.isActive()) {
-                                                                            ServerPushService.INSTANCE.sendTo(key,
-                                                                                    String.valueOf(System.nanoTime()));
-                                                                        }
-                                                                    }, 0, 1, TimeUnit.SECONDS);
-                                                                     
-                                                                    connectStream.closeFuture().addListener(f -> {
-                                                                        ServerPushService.INSTANCE.unregister(key);
-                                                                    });
-                                                                } else {
-                                                                    System.err.println("❌ Failed: " + future.cause());
-                                                                }
-                                                            });
-                                                }
-                                                ReferenceCountUtil.release(frame);
-                                            }
-
-                                            @Override
-                                            protected void channelRead(ChannelHandlerContext ctx,
-                                                    Http3DataFrame frame) {
-                                                ctx.fireChannelRead(frame);
-                                            }
-
-                                            @Override
-                                            protected void channelRead(ChannelHandlerContext ctx,
-                                                    Http3UnknownFrame frame) {
-                                                ctx.fireChannelRead(frame);
-                                            }
-
-                                            @Override
-                                            protected void channelInputClosed(ChannelHandlerContext ctx) {
-                                                logger.debug("🔒 Stream Closed: " + ctx.channel().id());
-                                                ctx.close();
-                                            }
-                                        });
-                                        // stream.pipeline().addLast(new WebTransportMessageDispatcher()); // Removed to
-                                        // correct pipeline order
+                                        // HTTP/3 request chain by default; the demux swaps in the
+                                        // WebTransport chain if the stream starts with 0x41
+                                        stream.pipeline().addFirst(new WebTransportStreamDemux());
+                                        WireCapture.onStream(stream);
+                                        stream.pipeline().addLast(new WebTransportConnectHandler(router));
                                         // DEBUG: Catch-all exception handler
-                                        stream.pipeline().addLast(new ChannelInboundHandlerAdapter() {
-                                            @Override
-                                            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-                                                System.err.println("❌ PIPELINE ERROR: " + cause.getMessage());
-                                                cause.printStackTrace();
-                                            }
-                                        });
+                                        stream.pipeline().addLast(PipelineErrorLogger.INSTANCE);
                                     }
                                 },
                                 null,
@@ -195,31 +145,11 @@ public class WebTransportServer {
                                         return new ChannelInitializer<QuicStreamChannel>() {
                                             @Override
                                             protected void initChannel(QuicStreamChannel ch) {
-                                                ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
-                                                    private boolean sessionHeaderRead = false;
-
-                                                    @Override
-                                                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
-                                                        if (msg instanceof ByteBuf) {
-                                                            ByteBuf data = (ByteBuf) msg;
-                                                            if (!sessionHeaderRead) {
-                                                                readVariableLengthInt(data);
-                                                                sessionHeaderRead = true;
-                                                            }
-                                                            if (!data.isReadable()) {
-                                                                data.release();
-                                                                return;
-                                                            }
-                                                            String savedPath = ctx.channel().parent()
-                                                                    .attr(WebTransportServer.SESSION_PATH_KEY).get();
-                                                            ctx.channel().attr(WebTransportUtils.STREAM_TYPE_KEY).set(streamType);  
-                                                            ctx.channel().attr(WebTransportServer.SESSION_PATH_KEY).set(savedPath);  
-                                                            ctx.fireChannelRead(msg);
-                                                        } else {
-                                                            ctx.fireChannelRead(msg);
-                                                        }
-                                                    }
-                                                });
+                                                WireCapture.onStream(ch);
+                                                // The codec consumed the 0x54 type; the session ID follows, and
+                                                // nothing is forwarded before the stream is charged to its session
+                                                ch.pipeline().addLast(new RawWebTransportHandler(streamType));
+                                                WebTransportFrameDecoder.addIfEnabled(ch.pipeline());
                                                 ch.pipeline().addLast(new MessageDispatcher());
                                             }
                                         };
@@ -227,15 +157,107 @@ public class WebTransportServer {
                                     return null;
                                 }, new DefaultHttp3SettingsFrame(settings), true));
                     }
-                }).build();
-        Channel ch = new Bootstrap()
+                });
+        return bind(codecBuilder, address);
+    }
+
+    /**
+     * Closes listeners returned by {@link #start} and shuts down their event loops.
+     */
+    public static void stop(List<Channel> listeners) {
+        for (Channel listener : listeners) {
+            listener.close().syncUninterruptibly();
+        }
+        for (Channel listener : listeners) {
+            listener.eventLoop().parent().shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    /**
+     * Batched egress for the epoll transport. With GSO the codec hands the socket one segmented datagram
+     * for a burst of same-sized packets to one peer (falls back to plain datagrams if unsupported), and
+     * the epoll channel writes everything pending at flush time with a single {@code sendmmsg}.
+     * {@code webtransport4j.egress.flushAfterPackets} lets the codec accumulate more packets per flush.
+     */
+    private static void configureEpollEgress(QuicServerCodecBuilder codecBuilder) {
+        SegmentedDatagramPacketAllocator allocator = SegmentedEgressAllocator.newAllocator();
+        if (allocator != SegmentedDatagramPacketAllocator.NONE) {
+            codecBuilder.option(QuicChannelOption.SEGMENTED_DATAGRAM_PACKET_ALLOCATOR, allocator);
+            logger.debug("📦 UDP GSO enabled: up to " + allocator.maxNumSegments() + " segments per send");
+        }
+        if (FLUSH_AFTER_PACKETS > 0) {
+            codecBuilder.flushStrategy(FlushStrategy.afterNumPackets(FLUSH_AFTER_PACKETS));
+        }
+    }
+
+    /**
+     * Binds the QUIC listener.
+     * On Linux with native epoll available this binds {@link #WORKERS} datagram sockets to the same
+     * address with SO_REUSEPORT, one per event loop, so QUIC crypto and HTTP/3 framing scale with cores.
+     * The kernel spreads packets across the sockets by 4-tuple, and {@link QuicCodecDispatcher} encodes the
+     * socket index into every connection ID we issue, so a packet that lands on the "wrong" socket
+     * (e.g. after NAT rebinding) is still handed to the codec and event loop that own the connection.
+     * With a single worker we still prefer one epoll socket (for batched egress); without native epoll
+     * we fall back to a single NIO socket on one event loop.
+     */
+    static List<Channel> bind(QuicServerCodecBuilder codecBuilder, InetSocketAddress address)
+            throws InterruptedException {
+        List<Channel> channels = new ArrayList<>();
+        if (WORKERS > 1 && Epoll.isAvailable()) {
+            EventLoopGroup group = new MultiThreadIoEventLoopGroup(WORKERS, EpollIoHandler.newFactory());
+            configureEpollEgress(codecBuilder);
+            ChannelHandler dispatcher = new QuicCodecDispatcher() {
+                @Override
+                protected void initChannel(Channel channel, int localConnectionIdLength,
+                        QuicConnectionIdGenerator idGenerator) {
+                    // Every socket gets its own codec (and its own connection table),
+                    // but they all issue connection IDs that route back to them.
+                    channel.pipeline().addLast(codecBuilder.clone()
+                            .localConnectionIdLength(localConnectionIdLength)
+                            .connectionIdAddressGenerator(idGenerator)
+                            .build());
+                }
+            };
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(group)
+                    .channel(EpollDatagramChannel.class)
+                    .option(UnixChannelOption.SO_REUSEPORT, true)
+                    .handler(dispatcher);
+            // Bootstrap registers each bind on group.next(), so socket i lands on event loop i.
+            for (int i = 0; i < WORKERS; i++) {
+                Channel channel = bootstrap.bind(address).sync().channel();
+                channels.add(channel);
+                // Port 0: the other sockets must share the port the first one got
+                address = (InetSocketAddress) channel.localAddress();
+            }
+            logger.debug("🧵 Epoll SO_REUSEPORT listener: " + WORKERS + " sockets / event loops");
+            return channels;
+        }
+
+        if (Epoll.isAvailable()) {
+            // Single socket, but still epoll so GSO / sendmmsg batching apply
+            configureEpollEgress(codecBuilder);
+            channels.add(new Bootstrap()
+                    .group(new MultiThreadIoEventLoopGroup(1, EpollIoHandler.newFactory()))
+                    .channel(EpollDatagramChannel.class)
+                    .handler(codecBuilder.build())
+                    .bind(address)
+                    .sync()
+                    .channel());
+            return channels;
+        }
+        if (WORKERS > 1) {
+            logger.warn("⚠️ Native epoll not available (" + Epoll.unavailabilityCause()
+                    + "), falling back to a single NIO listener");
+        }
+        EventLoopGroup group = new MultiThreadIoEventLoopGroup(1, NioIoHandler.newFactory());
+        channels.add(new Bootstrap()
                 .group(group)
                 .channel(NioDatagramChannel.class)
-                .handler(serverCodec)
-                .bind(new InetSocketAddress(PORT))
+                .handler(codecBuilder.build())
+                .bind(address)
                 .sync()
-                .channel();
-        logger.debug("✅ WebTransport server listening on " + PORT);
-        ch.closeFuture().sync();
+                .channel());
+        return channels;
     }
 }
\ No newline at end of file
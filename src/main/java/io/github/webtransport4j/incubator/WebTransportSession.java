@@ -1,47 +1,547 @@
 package io.github.webtransport4j.incubator;
 
+import io.github.webtransport4j.incubator.capture.WireCapture;
+import io.github.webtransport4j.incubator.metrics.PathMetrics;
+import io.github.webtransport4j.incubator.metrics.WebTransportMetrics;
+import io.github.webtransport4j.incubator.routing.RouteHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.quic.QuicChannel;
+import io.netty.channel.Channel;
 import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.handler.codec.quic.QuicStreamType;
+import io.netty.util.AttributeKey;
+import io.netty.util.Timeout;
+import io.netty.util.collection.LongObjectHashMap;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
 
 /**
  * @author https://github.com/sanjomo
  * @date 24/12/25 1:21 am
  */
 public class WebTransportSession {
+    private static final Logger logger = Logger.getLogger(WebTransportSession.class.getName());
+
+    /**
+     * Receives the session's datagrams on the connection's event loop, with the quarter stream ID already
+     * stripped. The payload is only borrowed for the duration of the call: {@code retain()} it to keep it.
+     */
+    public interface DatagramHandler {
+        void onDatagram(WebTransportSession session, ByteBuf payload);
+    }
+
+    // Set on every peer-initiated stream bound to a session
+    public static final AttributeKey<WebTransportSession> SESSION_KEY = AttributeKey.valueOf("wt.session");
+
+    // Application error code for a peer exceeding the session limits we advertised
+    public static final long WT_FLOW_CONTROL_ERROR = 0x045d4487L;
+
+    // Per-session receive budgets, advertised with WT_MAX_DATA / WT_MAX_STREAMS right after the 200
+    static final boolean FLOW_CONTROL =
+            Boolean.parseBoolean(System.getProperty("webtransport4j.session.flowControl", "true"));
+    static final long MAX_DATA = Long.getLong("webtransport4j.session.maxData", 4 * 1024 * 1024);
+    static final long MAX_STREAMS_BIDI = Long.getLong("webtransport4j.session.maxStreamsBidi", 50);
+    static final long MAX_STREAMS_UNI = Long.getLong("webtransport4j.session.maxStreamsUni", 50);
+
+    // A session with no open stream and no capsule/datagram/data activity for this long is closed (0 = never)
+    static final long IDLE_TIMEOUT_MS = Long.getLong("webtransport4j.session.idleTimeoutMs", 120_000);
 
     public final long sessionStreamId;
     final QuicStreamChannel connectStream;
 
-    // Phase 1: announced via WT_STREAM capsule
-    private final Set<Long> announcedStreams =
-            ConcurrentHashMap.newKeySet();
+    // Resolved once when the CONNECT request is accepted; read for every dispatched message
+    private final String path;
+    private final RouteHandler handler;
+    private final PathMetrics pathMetrics;
+
+    // Encoded once per session: the quarter stream ID in front of every datagram, and the [0x54][session ID]
+    // header of every push stream (built on the first one, event loop only)
+    private final long quarterStreamId;
+    private final int datagramPrefixLength;
+    private ByteBuf uniStreamHeader;
 
-    // Phase 2: actual channels
-    private final Map<Long, QuicStreamChannel> activeStreams =
-            new ConcurrentHashMap<>();
+    // Keyed by QUIC stream ID without boxing, confined to the connection's event loop.
+    // Phase 1: announced via WT_STREAM capsule, dropped once attached
+    private final LongObjectHashMap<Boolean> announcedStreams = new LongObjectHashMap<>(4);
+
+    // Phase 2: actual channels, removed when the stream closes
+    private final LongObjectHashMap<QuicStreamChannel> activeStreams = new LongObjectHashMap<>(8);
+
+    private volatile DatagramHandler datagramHandler;
+
+    // Lifecycle, driven by capsules on the CONNECT stream (written on the connection's event loop)
+    private volatile boolean draining;
+    private volatile boolean closed;
+
+    // Limits advertised by the peer; -1 until the corresponding capsule arrives (event loop only)
+    private long peerMaxData = -1;
+    private long peerMaxStreamsBidi = -1;
+    private long peerMaxStreamsUni = -1;
+
+    // Receive side flow control. Limits are raised as the application consumes data / streams close, once
+    // less than half a window is left. Written on the event loop; localMaxData is read by consumers.
+    private volatile long localMaxData = MAX_DATA;
+    private long localMaxStreamsBidi = MAX_STREAMS_BIDI;
+    private long localMaxStreamsUni = MAX_STREAMS_UNI;
+    private long receivedData;
+    private long openedStreamsBidi;
+    private long openedStreamsUni;
+    private long closedStreamsBidi;
+    private long closedStreamsUni;
+    // Idle detection: a counter bumped on inbound activity, compared by the timer between two checks,
+    // so the hot path never reads the clock or touches the timer (event loop only)
+    private long activity;
+    private long activitySeen;
+    private Timeout idleTimer;
+
+    // Bytes handed back by the application, from any thread
+    private final AtomicLong consumedData = new AtomicLong();
+    private final AtomicBoolean creditScheduled = new AtomicBoolean();
 
     WebTransportSession(long sessionStreamId,
-                        QuicStreamChannel connectStream) {
+                        QuicStreamChannel connectStream,
+                        String path,
+                        RouteHandler handler) {
         this.sessionStreamId = sessionStreamId;
         this.connectStream = connectStream;
+        this.path = path;
+        this.handler = handler;
+        this.pathMetrics = WebTransportMetrics.ENABLED ? WebTransportMetrics.path(path) : null;
+        this.quarterStreamId = sessionStreamId >> 2;
+        this.datagramPrefixLength = WebTransportUtils.varIntLength(quarterStreamId);
+    }
+
+    /**
+     * The path of the CONNECT request that opened this session.
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * The handler of the route {@link #path()} matched.
+     */
+    public RouteHandler handler() {
+        return handler;
+    }
+
+    /**
+     * Metrics of {@link #path()}, or {@code null} when metrics are disabled.
+     */
+    public PathMetrics pathMetrics() {
+        return pathMetrics;
+    }
+
+    public QuicStreamChannel connectStream() {
+        return connectStream;
+    }
+
+    public QuicChannel quicChannel() {
+        return connectStream.parent();
+    }
+
+    public boolean isActive() {
+        return !closed && connectStream.isActive();
+    }
+
+    /**
+     * True once the peer sent DRAIN_WEBTRANSPORT_SESSION: it wants the session to wind down, so no new
+     * work should be started on it.
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long peerMaxData() {
+        return peerMaxData;
     }
 
+    public long peerMaxStreamsBidi() {
+        return peerMaxStreamsBidi;
+    }
+
+    public long peerMaxStreamsUni() {
+        return peerMaxStreamsUni;
+    }
+
+    public long localMaxData() {
+        return localMaxData;
+    }
+
+    public long receivedData() {
+        return receivedData;
+    }
+
+    /**
+     * The session a peer-initiated stream was bound to by {@link #onPeerStream}, or {@code null}.
+     */
+    public static WebTransportSession of(Channel stream) {
+        return stream.attr(SESSION_KEY).get();
+    }
+
+    /**
+     * Sends our initial WT_MAX_DATA and WT_MAX_STREAMS limits. Called once, after the 200 response.
+     */
+    void advertiseLimits() {
+        if (!FLOW_CONTROL) {
+            return;
+        }
+        connectStream.write(WebTransportCapsules.varIntCapsule(
+                connectStream.alloc(), WebTransportCapsules.WT_MAX_DATA, localMaxData));
+        connectStream.write(WebTransportCapsules.varIntCapsule(
+                connectStream.alloc(), WebTransportCapsules.WT_MAX_STREAMS_BIDI, localMaxStreamsBidi));
+        connectStream.writeAndFlush(WebTransportCapsules.varIntCapsule(
+                connectStream.alloc(), WebTransportCapsules.WT_MAX_STREAMS_UNI, localMaxStreamsUni));
+    }
+
+    /**
+     * Binds a peer-initiated stream to this session and charges it against the stream limit. Event loop only.
+     *
+     * @return {@code false} if the stream was refused (the session is closed, or the peer exceeded the limit
+     *         and the session was closed with {@link #WT_FLOW_CONTROL_ERROR})
+     */
+    boolean onPeerStream(QuicStreamChannel stream) {
+        if (closed) {
+            stream.close();
+            return false;
+        }
+        boolean bidi = stream.type() == QuicStreamType.BIDIRECTIONAL;
+        long opened = bidi ? ++openedStreamsBidi : ++openedStreamsUni;
+        if (FLOW_CONTROL && opened > (bidi ? localMaxStreamsBidi : localMaxStreamsUni)) {
+            stream.close();
+            flowControlError((bidi ? "bidirectional" : "unidirectional") + " stream limit exceeded");
+            return false;
+        }
+        stream.attr(SESSION_KEY).set(this);
+        WireCapture.onSessionStream(this, stream);
+        WebTransportMetrics.streamOpened();
+        track(stream);
+        stream.closeFuture().addListener(f -> onPeerStreamClosed(bidi));
+        return true;
+    }
+
+    /**
+     * Charges stream payload bytes received from the peer. Event loop only.
+     *
+     * @return {@code false} if the peer overran WT_MAX_DATA; the session is then closed
+     */
+    boolean onDataReceived(int bytes) {
+        activity++;
+        receivedData += bytes;
+        WebTransportMetrics.bytesIn(bytes);
+        if (FLOW_CONTROL && receivedData > localMaxData && !closed) {
+            flowControlError("received " + receivedData + " bytes, limit " + localMaxData);
+            return false;
+        }
+        return !closed;
+    }
+
+    /**
+     * Returns receive credit for bytes the application is done with. May be called from any thread; the
+     * WT_MAX_DATA update is sent from the event loop once less than half a window is left.
+     */
+    public void onDataConsumed(int bytes) {
+        long consumed = consumedData.addAndGet(bytes);
+        if (FLOW_CONTROL && localMaxData - consumed < MAX_DATA / 2 && creditScheduled.compareAndSet(false, true)) {
+            if (connectStream.eventLoop().inEventLoop()) {
+                grantData();
+            } else {
+                connectStream.eventLoop().execute(this::grantData);
+            }
+        }
+    }
+
+    /**
+     * Returns credit for bytes that never reach the application (framing overhead, discarded input).
+     */
+    static void consumedOutOfBand(Channel stream, int bytes) {
+        WebTransportSession session = of(stream);
+        if (session != null) {
+            session.onDataConsumed(bytes);
+        }
+    }
+
+    private void grantData() {
+        creditScheduled.set(false);
+        long newMax = consumedData.get() + MAX_DATA;
+        if (closed || newMax - localMaxData < MAX_DATA / 2) {
+            return;
+        }
+        localMaxData = newMax;
+        WriteCoalescer.of(connectStream).write(WebTransportCapsules.varIntCapsule(
+                connectStream.alloc(), WebTransportCapsules.WT_MAX_DATA, newMax));
+    }
+
+    private void onPeerStreamClosed(boolean bidi) {
+        if (closed || !FLOW_CONTROL) {
+            return;
+        }
+        if (bidi) {
+            closedStreamsBidi++;
+            if (localMaxStreamsBidi - closedStreamsBidi < MAX_STREAMS_BIDI / 2) {
+                localMaxStreamsBidi = closedStreamsBidi + MAX_STREAMS_BIDI;
+                WriteCoalescer.of(connectStream).write(WebTransportCapsules.varIntCapsule(
+                        connectStream.alloc(), WebTransportCapsules.WT_MAX_STREAMS_BIDI, localMaxStreamsBidi));
+            }
+        } else {
+            closedStreamsUni++;
+            if (localMaxStreamsUni - closedStreamsUni < MAX_STREAMS_UNI / 2) {
+                localMaxStreamsUni = closedStreamsUni + MAX_STREAMS_UNI;
+                WriteCoalescer.of(connectStream).write(WebTransportCapsules.varIntCapsule(
+                        connectStream.alloc(), WebTransportCapsules.WT_MAX_STREAMS_UNI, localMaxStreamsUni));
+            }
+        }
+    }
+
+    private void flowControlError(String detail) {
+        logger.warn("🚫 Session " + sessionStreamId + " flow control error: " + detail);
+        close(WT_FLOW_CONTROL_ERROR, "flow control error");
+    }
+
+    public DatagramHandler datagramHandler() {
+        return datagramHandler;
+    }
+
+    public void datagramHandler(DatagramHandler handler) {
+        this.datagramHandler = handler;
+    }
+
+    /**
+     * Sends {@code payload} as an HTTP/3 datagram of this session and takes ownership of it. QUIC needs the
+     * datagram in one piece, so the payload is copied once, behind the cached quarter stream ID.
+     */
+    public void sendDatagram(ByteBuf payload) {
+        QuicChannel quic = quicChannel();
+        int length = payload.readableBytes();
+        ByteBuf datagram = quic.alloc().directBuffer(datagramPrefixLength + length);
+        writeDatagramPrefix(datagram);
+        datagram.writeBytes(payload, payload.readerIndex(), length);
+        payload.release();
+        WriteCoalescer.of(quic).write(datagram);
+    }
+
+    /**
+     * Like {@link #sendDatagram(ByteBuf)}, UTF-8 encoding {@code text} straight behind the prefix, so no
+     * intermediate buffer is allocated.
+     */
+    public void sendDatagram(CharSequence text) {
+        QuicChannel quic = quicChannel();
+        ByteBuf datagram = quic.alloc().directBuffer(datagramPrefixLength + ByteBufUtil.utf8MaxBytes(text));
+        writeDatagramPrefix(datagram);
+        ByteBufUtil.writeUtf8(datagram, text);
+        WriteCoalescer.of(quic).write(datagram);
+    }
+
+    private void writeDatagramPrefix(ByteBuf datagram) {
+        int index = datagram.writerIndex();
+        WebTransportUtils.setVarInt(datagram, index, quarterStreamId, datagramPrefixLength);
+        datagram.writerIndex(index + datagramPrefixLength);
+    }
+
+    /**
+     * The header that binds a server-initiated unidirectional stream to this session, encoded on first use.
+     * Each call returns a retained duplicate of the cached bytes, released by the stream once written; the
+     * session's own reference goes with {@link #terminate()}. Event loop only.
+     */
+    ByteBuf uniStreamHeader() {
+        if (uniStreamHeader == null) {
+            ByteBuf header = connectStream.alloc().directBuffer(16);
+            WebTransportUtils.writeVarInts(header, WebTransportUtils.UNI_STREAM_TYPE, sessionStreamId);
+            if (closed) {
+                // Nothing left to release it: this one is the stream's alone
+                return header;
+            }
+            uniStreamHeader = header;
+        }
+        return uniStreamHeader.retainedDuplicate();
+    }
+
+    /**
+     * Closes the session: sends CLOSE_WEBTRANSPORT_SESSION, then FIN on the CONNECT stream, and closes the
+     * session's streams. Safe to call from any thread, and more than once.
+     */
+    public void close(long errorCode, String reason) {
+        if (!connectStream.eventLoop().inEventLoop()) {
+            connectStream.eventLoop().execute(() -> close(errorCode, reason));
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        if (connectStream.isActive()) {
+            connectStream.writeAndFlush(WebTransportCapsules.closeSession(connectStream.alloc(), errorCode, reason))
+                    .addListener(QuicStreamChannel.SHUTDOWN_OUTPUT);
+        }
+        terminate();
+    }
+
+    /**
+     * Asks the peer to wind the session down (DRAIN_WEBTRANSPORT_SESSION) without closing it.
+     */
+    public void drain() {
+        if (!connectStream.eventLoop().inEventLoop()) {
+            connectStream.eventLoop().execute(this::drain);
+            return;
+        }
+        if (!closed && connectStream.isActive()) {
+            connectStream.writeAndFlush(WebTransportCapsules.drainSession(connectStream.alloc()));
+        }
+    }
+
+    /**
+     * Applies a capsule received on the CONNECT stream. {@code value} is borrowed. Event loop only.
+     */
+    void onCapsule(long type, ByteBuf value) {
+        activity++;
+        if (type == WebTransportCapsules.CLOSE_WEBTRANSPORT_SESSION) {
+            long errorCode = value.readableBytes() >= 4 ? value.readUnsignedInt() : 0;
+            String reason = value.toString(StandardCharsets.UTF_8);
+            logger.debug("👋 Peer closed Session " + sessionStreamId + " (code " + errorCode + "): " + reason);
+            // The peer is done sending; finish our side of the CONNECT stream and release the session
+            if (connectStream.isActive()) {
+                connectStream.shutdownOutput();
+            }
+            terminate();
+        } else if (type == WebTransportCapsules.DRAIN_WEBTRANSPORT_SESSION) {
+            logger.debug("🚰 Peer is draining Session " + sessionStreamId);
+            draining = true;
+        } else if (type == WebTransportCapsules.WT_MAX_DATA) {
+            peerMaxData = Math.max(peerMaxData, WebTransportUtils.readVariableLengthInt(value));
+        } else if (type == WebTransportCapsules.WT_MAX_STREAMS_BIDI) {
+            peerMaxStreamsBidi = Math.max(peerMaxStreamsBidi, WebTransportUtils.readVariableLengthInt(value));
+        } else if (type == WebTransportCapsules.WT_MAX_STREAMS_UNI) {
+            peerMaxStreamsUni = Math.max(peerMaxStreamsUni, WebTransportUtils.readVariableLengthInt(value));
+        } else if (type == WebTransportCapsules.WT_STREAM || type == WebTransportCapsules.WT_STREAM_FIN) {
+            registerStream(WebTransportUtils.readVariableLengthInt(value));
+        } else if (type == WebTransportCapsules.DATAGRAM) {
+            DatagramHandler handler = datagramHandler;
+            if (handler != null) {
+                handler.onDatagram(this, value);
+            }
+        } else if (logger.isDebugEnabled()) {
+            // Unknown capsule types are skipped (RFC 9297, section 3.2); BLOCKED capsules are informational
+            logger.debug("📦 Ignoring capsule 0x" + Long.toHexString(type) + " on Session " + sessionStreamId);
+        }
+    }
+
+    /**
+     * Records inbound activity that does not go through a stream (datagrams). Event loop only.
+     */
+    void touch() {
+        activity++;
+    }
+
+    /**
+     * Arms the idle reaper on the shared timer. Called once, when the session is registered.
+     */
+    void startIdleTimer() {
+        if (IDLE_TIMEOUT_MS > 0) {
+            // Baseline for the first check, so a session that stays idle from the start goes after one timeout
+            activitySeen = activity;
+            idleTimer = SessionTimers.schedule(connectStream, this::checkIdle, IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkIdle() {
+        if (closed) {
+            return;
+        }
+        if (!connectStream.isActive()) {
+            // Orphaned: the CONNECT stream went away without us noticing
+            terminate();
+            return;
+        }
+        if (activity == activitySeen && activeStreams.isEmpty()) {
+            logger.debug("💤 Session " + sessionStreamId + " idle for " + IDLE_TIMEOUT_MS + "ms, closing");
+            close(0, "idle timeout");
+            return;
+        }
+        activitySeen = activity;
+        idleTimer = SessionTimers.schedule(connectStream, this::checkIdle, IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks the session closed, closes its streams and removes it from the connection's manager.
+     * Called on the event loop once the session is over, whichever side ended it.
+     */
+    void terminate() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        WebTransportMetrics.sessionClosed();
+        if (idleTimer != null) {
+            idleTimer.cancel();
+        }
+        if (uniStreamHeader != null) {
+            uniStreamHeader.release();
+            uniStreamHeader = null;
+        }
+        for (QuicStreamChannel stream : new ArrayList<>(activeStreams.values())) {
+            stream.close();
+        }
+        activeStreams.clear();
+        announcedStreams.clear();
+        WebTransportSessionManager manager = quicChannel().attr(WebTransportSessionManager.WT_SESSION_MGR).get();
+        if (manager != null) {
+            manager.remove(sessionStreamId);
+        }
+    }
+
+    /**
+     * Number of open streams of this session. Event loop only.
+     */
+    public int streamCount() {
+        return activeStreams.size();
+    }
+
+    /**
+     * Event loop only, like {@link #attachStream}.
+     */
     public void registerStream(long wtStreamId) {
-        announcedStreams.add(wtStreamId);
+        announcedStreams.put(wtStreamId, Boolean.TRUE);
     }
 
     public void attachStream(QuicStreamChannel ch) {
         long id = ch.streamId();
 
-        if (!announcedStreams.contains(id)) {
+        if (announcedStreams.remove(id) == null) {
             // Protocol violation or attack
             ch.close();
             return;
         }
 
-        activeStreams.put(id, ch);
+        track(ch);
+    }
+
+    /**
+     * Tracks a stream the server opened for this session (e.g. a push stream), so it keeps the session
+     * from being reaped as idle and is closed with it. Event loop only.
+     */
+    void trackLocalStream(QuicStreamChannel stream) {
+        if (closed) {
+            stream.close();
+            return;
+        }
+        WireCapture.onSessionStream(this, stream);
+        track(stream);
+    }
+
+    private void track(QuicStreamChannel stream) {
+        long id = stream.streamId();
+        activeStreams.put(id, stream);
+        // Closed streams leave no trace, however many a long-lived session opens
+        stream.closeFuture().addListener(f -> activeStreams.remove(id));
     }
 }
@@ -1,10 +1,17 @@
 package io.github.webtransport4j.incubator;
 
+import io.github.webtransport4j.incubator.capture.WireCapture;
+import io.github.webtransport4j.incubator.routing.RouteHandler;
+import io.netty.handler.codec.quic.QuicChannel;
 import io.netty.handler.codec.quic.QuicStreamChannel;
 import io.netty.util.AttributeKey;
+import io.netty.util.Timeout;
+import io.netty.util.collection.LongObjectHashMap;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.apache.log4j.Logger;
 
@@ -22,22 +29,106 @@ public class WebTransportSessionManager {
 
     // Key: The Session ID (which is the Stream ID of the CONNECT stream)
     // Value: The Session object containing state
-    private final Map<Long, WebTransportSession> sessions = new ConcurrentHashMap<>();
+    // Primitive keys, no locking: only ever touched from the connection's event loop
+    private final LongObjectHashMap<WebTransportSession> sessions = new LongObjectHashMap<>(4);
+
+    // A connection that has not opened a session this long after it was established is closed (0 = never)
+    static final long HANDSHAKE_TIMEOUT_MS = Long.getLong("webtransport4j.session.handshakeTimeoutMs", 10_000);
+
+    private final long createdNanos = System.nanoTime();
+    private long registeredSessions;
+    private Timeout handshakeDeadline;
+
+    // Datagrams whose quarter stream ID matched no session on this connection (event loop only)
+    long droppedDatagrams;
+
+    // Streams that arrived before their session, waiting for it (see RawWebTransportHandler); bounded per
+    // connection so a peer cannot park unlimited streams on session IDs it never opens
+    static final int MAX_BUFFERED_STREAMS = Integer.getInteger("webtransport4j.session.maxBufferedStreams", 16);
+    private final LongObjectHashMap<List<Consumer<WebTransportSession>>> waiting = new LongObjectHashMap<>(2);
+    private int waitingStreams;
 
     /**
-     * Called when a CONNECT webtransport request is accepted (200 OK).
+     * Called when a CONNECT webtransport request is accepted (200 OK), with the route it matched.
      */
-    public WebTransportSession register(QuicStreamChannel connectStream) {
+    public WebTransportSession register(QuicStreamChannel connectStream, String path, RouteHandler handler) {
         long sessionStreamId = connectStream.streamId();
 
         // Create the session state
-        WebTransportSession session = new WebTransportSession(sessionStreamId, connectStream);
+        WebTransportSession session = new WebTransportSession(sessionStreamId, connectStream, path, handler);
 
         sessions.put(sessionStreamId, session);
+        registeredSessions++;
+        if (handshakeDeadline != null) {
+            handshakeDeadline.cancel();
+            handshakeDeadline = null;
+        }
+        session.startIdleTimer();
+        WireCapture.onSession(session);
         logger.debug("📝 SessionManager: Registered Session ID " + sessionStreamId);
+
+        // Streams that overtook the CONNECT request can go ahead now
+        List<Consumer<WebTransportSession>> waiters = waiting.remove(sessionStreamId);
+        if (waiters != null) {
+            waitingStreams -= waiters.size();
+            for (Consumer<WebTransportSession> waiter : waiters) {
+                waiter.accept(session);
+            }
+        }
         return session;
     }
 
+    /**
+     * Parks a stream whose header names a session that is not registered (yet): {@code onSession} runs when
+     * it is. Event loop only.
+     *
+     * @return {@code false} if the connection already has {@code webtransport4j.session.maxBufferedStreams}
+     *         streams waiting; the stream should then be rejected
+     */
+    boolean await(long sessionStreamId, Consumer<WebTransportSession> onSession) {
+        if (waitingStreams >= MAX_BUFFERED_STREAMS) {
+            return false;
+        }
+        List<Consumer<WebTransportSession>> waiters = waiting.get(sessionStreamId);
+        if (waiters == null) {
+            waiters = new ArrayList<>(2);
+            waiting.put(sessionStreamId, waiters);
+        }
+        waiters.add(onSession);
+        waitingStreams++;
+        return true;
+    }
+
+    /**
+     * Withdraws a stream parked by {@link #await} (it gave up or went away). Event loop only.
+     */
+    void cancelAwait(long sessionStreamId, Consumer<WebTransportSession> onSession) {
+        List<Consumer<WebTransportSession>> waiters = waiting.get(sessionStreamId);
+        if (waiters != null && waiters.remove(onSession)) {
+            waitingStreams--;
+            if (waiters.isEmpty()) {
+                waiting.remove(sessionStreamId);
+            }
+        }
+    }
+
+    /**
+     * Closes {@code connection} unless a WebTransport session is established within
+     * {@code -Dwebtransport4j.session.handshakeTimeoutMs}, and ends every session when it closes.
+     */
+    public void bind(QuicChannel connection) {
+        if (HANDSHAKE_TIMEOUT_MS > 0) {
+            handshakeDeadline = SessionTimers.schedule(connection, () -> {
+                if (registeredSessions == 0 && connection.isActive()) {
+                    logger.debug("⌛ No WebTransport session within " + HANDSHAKE_TIMEOUT_MS + "ms, closing "
+                            + connection.id().asShortText());
+                    connection.close();
+                }
+            }, HANDSHAKE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        connection.closeFuture().addListener(f -> closeAll());
+    }
+
     /**
      * Required by the Demux handler to validate incoming Bidi streams.
      */
@@ -45,6 +136,22 @@ public class WebTransportSessionManager {
         return sessions.containsKey(sessionStreamId);
     }
 
+    /**
+     * Time since the connection was created if no session was registered on it yet (the QUIC + TLS +
+     * CONNECT handshake), otherwise -1.
+     */
+    public long handshakeNanos() {
+        return registeredSessions == 0 ? System.nanoTime() - createdNanos : -1;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long droppedDatagrams() {
+        return droppedDatagrams;
+    }
+
     public WebTransportSession get(long sessionStreamId) {
         return sessions.get(sessionStreamId);
     }
@@ -64,9 +171,20 @@ public class WebTransportSessionManager {
      * Prevents memory leaks by clearing the map.
      */
     public void closeAll() {
+        if (handshakeDeadline != null) {
+            handshakeDeadline.cancel();
+            handshakeDeadline = null;
+        }
+        // Waiting streams close with the connection and release what they hold themselves
+        waiting.clear();
+        waitingStreams = 0;
         if (!sessions.isEmpty()) {
             logger.debug(
                     "💥 SessionManager: Closing all " + sessions.size() + " active sessions due to connection close.");
+            // terminate() removes each session from the map, so iterate over a copy
+            for (WebTransportSession session : new ArrayList<>(sessions.values())) {
+                session.terminate();
+            }
             sessions.clear();
         }
     }
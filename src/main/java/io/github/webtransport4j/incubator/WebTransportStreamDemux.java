@@ -0,0 +1,120 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+
+import org.apache.log4j.Logger;
+
+/**
+ * First handler of every client-initiated bidirectional stream. It classifies the stream from the first varint
+ * and then gets out of the way:
+ * <ul>
+ * <li>{@code 0x41} (WT_STREAM signal): a raw WebTransport stream. Everything after this handler (the HTTP/3
+ * codec and request handlers) is dropped from the tail and the precomputed WebTransport chain is added in
+ * one call.</li>
+ * <li>anything else is an HTTP/3 frame type: the pipeline is already right, only this handler is removed.</li>
+ * </ul>
+ * No handler names or class names are looked at. If a read ends inside the first varint the bytes are held
+ * (not copied) until the rest arrives.
+ */
+public class WebTransportStreamDemux extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = Logger.getLogger(WebTransportStreamDemux.class.getName());
+
+    // Signal value opening a WebTransport bidirectional stream (varint, encoded as 0x40 0x41)
+    static final long WT_BIDI_SIGNAL = 0x41;
+
+    /**
+     * Creates the handlers of a WebTransport stream pipeline, in order.
+     */
+    public interface Chain {
+        ChannelHandler[] newHandlers();
+    }
+
+    /**
+     * RawWebTransportHandler, the optional framing codec, MessageDispatcher and the error logger.
+     */
+    public static final Chain WEBTRANSPORT_CHAIN = WebTransportFrameDecoder.ENABLED
+            ? () -> new ChannelHandler[] {
+                    new RawWebTransportHandler(), new WebTransportFrameDecoder(), WebTransportFrameEncoder.INSTANCE,
+                    new MessageDispatcher(), PipelineErrorLogger.INSTANCE }
+            : () -> new ChannelHandler[] {
+                    new RawWebTransportHandler(), new MessageDispatcher(), PipelineErrorLogger.INSTANCE };
+
+    private final Chain webTransportChain;
+    // First bytes of the stream while the first varint is incomplete
+    private ByteBuf held;
+
+    public WebTransportStreamDemux() {
+        this(WEBTRANSPORT_CHAIN);
+    }
+
+    public WebTransportStreamDemux(Chain webTransportChain) {
+        this.webTransportChain = webTransportChain;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        ByteBuf in = (ByteBuf) msg;
+        if (held != null) {
+            in = ctx.alloc().compositeBuffer(2).addComponents(true, held, in);
+            held = null;
+        }
+        if (!in.isReadable()) {
+            in.release();
+            return;
+        }
+
+        // 1. Peek (do not consume) the first varint; downstream parses the stream from its first byte
+        int first = in.getUnsignedByte(in.readerIndex());
+        int length = 1 << (first >> 6);
+        if (in.readableBytes() < length) {
+            held = in;
+            return;
+        }
+        long type = peekVarInt(in, length);
+
+        ChannelPipeline p = ctx.pipeline();
+        if (type == WT_BIDI_SIGNAL) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("🚀 Raw WebTransport stream " + ctx.channel().id().asShortText());
+            }
+            // 2. Drop the HTTP/3 chain behind us and add the WebTransport one
+            while (p.last() != this) {
+                p.removeLast();
+            }
+            p.addLast(webTransportChain.newHandlers());
+        }
+        // 3. Classified for good: we are no longer needed either way
+        p.remove(this);
+        ctx.fireChannelRead(in);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        if (held != null) {
+            held.release();
+            held = null;
+        }
+    }
+
+    private static long peekVarInt(ByteBuf in, int length) {
+        int index = in.readerIndex();
+        switch (length) {
+            case 1:
+                return in.getUnsignedByte(index);
+            case 2:
+                return in.getUnsignedShort(index) & 0x3FFF;
+            case 4:
+                return in.getUnsignedInt(index) & 0x3FFFFFFFL;
+            default:
+                return in.getLong(index) & 0x3FFFFFFFFFFFFFFFL;
+        }
+    }
+}
@@ -8,7 +8,9 @@ package io.github.webtransport4j.incubator;
 import io.github.webtransport4j.incubator.applayer.ServerPushService;
 import io.github.webtransport4j.incubator.applayer.StreamSender;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.quic.QuicChannel;
 import io.netty.handler.codec.quic.QuicStreamChannel;
@@ -21,7 +23,7 @@ public class WebTransportUtils {
     public static final AttributeKey<Long> SESSION_ID_KEY = AttributeKey.valueOf("wt.session.id");
     public static final AttributeKey<Long> STREAM_TYPE_KEY = AttributeKey.valueOf("wt.stream.type");
 
-    private static final int UNI_STREAM_TYPE = 0x54; // WebTransport Unidirectional ID
+    static final int UNI_STREAM_TYPE = 0x54; // WebTransport Unidirectional ID
 
     /**
      * Creates a new Server-Initiated Unidirectional Stream.
@@ -41,14 +43,26 @@ public class WebTransportUtils {
                     }
 
                     QuicStreamChannel stream = future.getNow();
+                    WebTransportSessionManager manager = connection.attr(WebTransportSessionManager.WT_SESSION_MGR).get();
+                    WebTransportSession session = manager != null ? manager.get(sessionId) : null;
+                    if (session != null) {
+                        session.trackLocalStream(stream);
+                    }
 
                     // 2. Write the Mandatory Header: [0x54] [SessionID]
-                    // We write this synchronously before giving the stream to the user.
-                    ByteBuf header = Unpooled.buffer(16);
+                    // We write this synchronously before giving the stream to the user. A known session hands
+                    // out its cached header; otherwise it is encoded into a pooled direct buffer.
+                    ByteBuf header;
+                    if (session != null) {
+                        header = session.uniStreamHeader();
+                    } else {
+                        header = stream.alloc().directBuffer(16);
+                        writeVarInts(header, UNI_STREAM_TYPE, sessionId);
+                    }
                     try {
-                        writeVarInt(header, UNI_STREAM_TYPE);
-                        writeVarInt(header, sessionId);
                         stream.writeAndFlush(header);
+                        // Owned by the stream now; for a known session it shares the cached header's count
+                        header = null;
                         StreamSender sender = new StreamSender(stream);
                         if (key != null) {
                             ServerPushService.INSTANCE.register(key, sender);
@@ -56,7 +70,9 @@ public class WebTransportUtils {
 
                         promise.setSuccess(sender);
                     } catch (Exception e) {
-                        header.release();
+                        if (header != null) {
+                            header.release();
+                        }
                         stream.close();
                         promise.setFailure(e);
                     }
@@ -65,6 +81,68 @@ public class WebTransportUtils {
         return promise;
     }
 
+    /**
+     * Aborts a peer's stream: STOP_SENDING with {@code errorCode}, plus RESET_STREAM if it is bidirectional,
+     * then closes it. Any other channel is just closed.
+     */
+    public static void resetStream(Channel channel, int errorCode) {
+        if (channel instanceof QuicStreamChannel) {
+            QuicStreamChannel stream = (QuicStreamChannel) channel;
+            ChannelFuture reset = stream.type() == QuicStreamType.BIDIRECTIONAL
+                    ? stream.shutdown(errorCode) : stream.shutdownInput(errorCode);
+            reset.addListener(ChannelFutureListener.CLOSE);
+        } else {
+            channel.close();
+        }
+    }
+
+    /**
+     * Number of bytes {@link #writeVarInt(ByteBuf, long)} uses for {@code value} (1, 2, 4 or 8).
+     */
+    public static int varIntLength(long value) {
+        if (value < 0 || value > 0x3FFFFFFFFFFFFFFFL) {
+            throw new IllegalArgumentException("Invalid QUIC VarInt: " + value);
+        }
+        int requiredBits = 64 - Long.numberOfLeadingZeros(value);
+        return requiredBits <= 6 ? 1 : requiredBits <= 14 ? 2 : requiredBits <= 30 ? 4 : 8;
+    }
+
+    /**
+     * Bulk encoder for the common two-varint headers (stream type + session ID, capsule type + length):
+     * one capacity check and one writer index update instead of two of each.
+     */
+    public static void writeVarInts(ByteBuf out, long first, long second) {
+        int firstLength = varIntLength(first);
+        int secondLength = varIntLength(second);
+        out.ensureWritable(firstLength + secondLength);
+        int index = out.writerIndex();
+        setVarInt(out, index, first, firstLength);
+        setVarInt(out, index + firstLength, second, secondLength);
+        out.writerIndex(index + firstLength + secondLength);
+    }
+
+    /**
+     * Writes {@code value} at an absolute index using exactly {@code length} bytes (see {@link #varIntLength}).
+     */
+    public static void setVarInt(ByteBuf out, int index, long value, int length) {
+        switch (length) {
+            case 1:
+                out.setByte(index, (int) value);
+                break;
+            case 2:
+                out.setShort(index, (int) (value | 0x4000L));
+                break;
+            case 4:
+                out.setInt(index, (int) (value | 0x80000000L));
+                break;
+            case 8:
+                out.setLong(index, value | 0xC000000000000000L);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid QUIC VarInt length: " + length);
+        }
+    }
+
     public static void writeVarInt(ByteBuf out, long value) {
         // QUIC VarInts are limited to 62 bits (max roughly 4.6 quintillion)
         // 0x3FFFFFFFFFFFFFFF is the max valid value (2^62 - 1)
@@ -94,6 +172,12 @@ public class WebTransportUtils {
         }
     }
 
+    /**
+     * Reads one varint if it is completely available.
+     * Valid values are never negative, so {@code -1} unambiguously means "not enough bytes yet"; in that case
+     * nothing is consumed. Callers that must survive split reads should use {@link VarIntDecoder} instead of
+     * re-parsing the same bytes on every read.
+     */
     public static long readVariableLengthInt(ByteBuf in) {
         // 1. Quick check: Is there even 1 byte to peek?
         if (!in.isReadable()) {
@@ -0,0 +1,151 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces writes issued from any thread into one event-loop task and (ideally) one flush per loop
+ * iteration, instead of an {@code execute} + {@code writeAndFlush} per message. Every flush turns into
+ * QUIC packets and a send syscall, so with many small messages this cuts packets and syscalls per message.
+ * <p>
+ * A batch is flushed early once it reaches {@code webtransport4j.coalesce.maxBytes} or
+ * {@code webtransport4j.coalesce.maxMessages}. Disable with {@code -Dwebtransport4j.coalesceWrites=false}.
+ */
+public final class WriteCoalescer {
+
+    public static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("webtransport4j.coalesceWrites", "true"));
+    static final int MAX_BATCH_BYTES = Integer.getInteger("webtransport4j.coalesce.maxBytes", 64 * 1024);
+    static final int MAX_BATCH_MESSAGES = Integer.getInteger("webtransport4j.coalesce.maxMessages", 64);
+
+    private static final AttributeKey<WriteCoalescer> KEY = AttributeKey.valueOf("wt.write.coalescer");
+
+    // Process-wide counters: messages / flushes is the achieved batch size
+    private static final LongAdder MESSAGES = new LongAdder();
+    private static final LongAdder FLUSHES = new LongAdder();
+    private static final LongAdder DRAINS = new LongAdder();
+
+    private final Channel channel;
+    private final Queue<Object> inbox = PlatformDependent.newMpscQueue();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;
+
+    private WriteCoalescer(Channel channel) {
+        this.channel = channel;
+    }
+
+    public static WriteCoalescer of(Channel channel) {
+        WriteCoalescer coalescer = channel.attr(KEY).get();
+        if (coalescer == null) {
+            WriteCoalescer created = new WriteCoalescer(channel);
+            coalescer = channel.attr(KEY).setIfAbsent(created);
+            if (coalescer == null) {
+                coalescer = created;
+            }
+        }
+        return coalescer;
+    }
+
+    /**
+     * Queues {@code msg} for writing; safe from any thread. Failures go to the pipeline's {@code exceptionCaught};
+     * on a channel whose event loop was shut down the message is released.
+     */
+    public void write(Object msg) {
+        if (!ENABLED) {
+            channel.writeAndFlush(msg, channel.voidPromise());
+            MESSAGES.increment();
+            FLUSHES.increment();
+            return;
+        }
+        inbox.offer(msg);
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                channel.eventLoop().execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                // The loop is gone, nothing will ever drain: drop what is queued
+                scheduled.set(false);
+                Object dropped;
+                while ((dropped = inbox.poll()) != null) {
+                    ReferenceCountUtil.release(dropped);
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        // Cleared first: a producer that enqueues after our last poll schedules a new drain
+        scheduled.set(false);
+        int messages = 0;
+        int flushes = 0;
+        int batchMessages = 0;
+        long batchBytes = 0;
+        Object msg;
+        while ((msg = inbox.poll()) != null) {
+            batchBytes += sizeOf(msg);
+            batchMessages++;
+            messages++;
+            channel.write(msg, channel.voidPromise());
+            if (batchMessages >= MAX_BATCH_MESSAGES || batchBytes >= MAX_BATCH_BYTES) {
+                channel.flush();
+                flushes++;
+                batchMessages = 0;
+                batchBytes = 0;
+            }
+        }
+        if (batchMessages > 0) {
+            channel.flush();
+            flushes++;
+        }
+        record(messages, flushes);
+    }
+
+    /**
+     * Lets other coalescing write paths (e.g. push streams) report into the same counters.
+     */
+    public static void record(int messages, int flushes) {
+        if (messages > 0) {
+            DRAINS.increment();
+            MESSAGES.add(messages);
+            FLUSHES.add(flushes);
+        }
+    }
+
+    static long sizeOf(Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        }
+        if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content().readableBytes();
+        }
+        return 0;
+    }
+
+    public static long totalMessages() {
+        return MESSAGES.sum();
+    }
+
+    public static long totalFlushes() {
+        return FLUSHES.sum();
+    }
+
+    public static long totalDrains() {
+        return DRAINS.sum();
+    }
+
+    /**
+     * Average number of messages written per flush since start.
+     */
+    public static double averageBatchSize() {
+        long flushes = FLUSHES.sum();
+        return flushes == 0 ? 0 : (double) MESSAGES.sum() / flushes;
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.webtransport4j.incubator.applayer;
+
+import io.github.webtransport4j.incubator.routing.RouteHandler;
+import io.github.webtransport4j.incubator.routing.TransportType;
+import io.github.webtransport4j.incubator.routing.WebTransportMessage;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The demo route: acknowledges every bidirectional stream message on the same stream and every datagram with
+ * a datagram. Unidirectional stream messages are only logged.
+ */
+public final class EchoHandler implements RouteHandler {
+    private static final Logger logger = Logger.getLogger(EchoHandler.class.getName());
+
+    public static final EchoHandler INSTANCE = new EchoHandler();
+
+    private EchoHandler() {
+    }
+
+    @Override
+    public void onMessage(WebTransportMessage message) {
+        try {
+            String path = message.path();
+            String content = message.text();
+            if (logger.isDebugEnabled()) {
+                logger.debug("⚡️ [APP LAYER] Dispatched to Controller:");
+                logger.debug("    Path: " + path);
+                logger.debug("    Type: " + message.type());
+                logger.debug("    Data: " + content);
+            }
+
+            // simulating the reply; replies are coalesced: all replies queued for a channel during one
+            // event-loop iteration go out with a single flush
+            if (message.type() == TransportType.BIDIRECTIONAL) {
+                message.reply("ACK BI: I received the message from " + path + ": " + content);
+            } else if (message.type() == TransportType.DATAGRAM) {
+                message.reply("ACK DG: I received the message from " + path + ": " + content);
+            }
+        } catch (Exception e) {
+            logger.error("Error in business logic", e);
+        } finally {
+            message.release();
+        }
+    }
+}
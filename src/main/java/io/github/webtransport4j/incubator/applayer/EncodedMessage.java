@@ -0,0 +1,55 @@
+package io.github.webtransport4j.incubator.applayer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A payload encoded once and sent any number of times: every send writes a retained duplicate (same memory,
+ * own indexes), so sending does not consume the message. Release it when it is no longer needed.
+ */
+public final class EncodedMessage extends DefaultByteBufHolder {
+
+    private EncodedMessage(ByteBuf content) {
+        super(content);
+    }
+
+    /**
+     * UTF-8 encodes {@code text} straight into a pooled direct buffer.
+     */
+    public static EncodedMessage utf8(CharSequence text) {
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(ByteBufUtil.utf8MaxBytes(text));
+        ByteBufUtil.writeUtf8(buffer, text);
+        return new EncodedMessage(buffer);
+    }
+
+    /**
+     * Takes ownership of {@code content}.
+     */
+    public static EncodedMessage of(ByteBuf content) {
+        return new EncodedMessage(content);
+    }
+
+    /**
+     * Wraps {@code content} without copying; it must not be modified while the message is in use.
+     */
+    public static EncodedMessage of(ByteBuffer content) {
+        return new EncodedMessage(Unpooled.wrappedBuffer(content));
+    }
+
+    /**
+     * A new reference to the payload for one send; the caller owns it.
+     */
+    public ByteBuf retainedPayload() {
+        return content().retainedDuplicate();
+    }
+
+    @Override
+    public EncodedMessage replace(ByteBuf content) {
+        return new EncodedMessage(content);
+    }
+}
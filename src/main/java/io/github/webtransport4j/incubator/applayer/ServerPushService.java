@@ -5,46 +5,208 @@ package io.github.webtransport4j.incubator.applayer;
  * @date 20/01/26 11:11 pm
  */
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.github.webtransport4j.incubator.metrics.WebTransportMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoop;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
 
 import org.apache.log4j.Logger;
 
 public class ServerPushService {
     private static final Logger logger = Logger.getLogger(ServerPushService.class.getName());
 
+    // A subscriber that stays unwritable this long is closed (which also unsubscribes it), so one slow
+    // client cannot pin memory for everybody else; 0 disables shedding
+    static final long SHED_SLOW_CONSUMERS_AFTER_MS = Long.getLong("webtransport4j.push.shedSlowConsumersAfterMs", 30_000);
+
+    // One shedder per push stream, however many topics it is subscribed to
+    private static final AttributeKey<SlowConsumerShedder> SHEDDER_KEY = AttributeKey.valueOf("wt.push.shedder");
+
     // Singleton Instance
     public static final ServerPushService INSTANCE = new ServerPushService();
 
-    // The Common Registry: Key -> Sender
-    private final Map<String, StreamSender> registry = new ConcurrentHashMap<>();
+    // The Common Registry: Topic -> Subscribers (sharded, many senders per topic)
+    private final TopicRegistry registry = new TopicRegistry();
 
-    public void register(String key, StreamSender sender) {
-        registry.put(key, sender);
-        logger.debug("✅ REGISTERED: " + key + " (Total: " + registry.size() + ")");
+    /**
+     * Adds {@code sender} to {@code topic}. A topic has any number of subscribers (devices of one user,
+     * members of a room, ...). The subscription is cancelled automatically when the stream closes.
+     */
+    public Subscription subscribe(String topic, StreamSender sender) {
+        Subscription subscription = registry.subscribe(topic, sender);
+        logger.debug("✅ SUBSCRIBED: " + topic);
 
-        // Safety: Auto-remove from map if the underlying channel closes
-        sender.getStreamChannel().closeFuture().addListener(f -> unregister(key));
+        // Safety: Auto-remove from the topic if the underlying channel closes
+        sender.getStreamChannel().closeFuture().addListener(f -> subscription.cancel());
+        if (SHED_SLOW_CONSUMERS_AFTER_MS > 0) {
+            SlowConsumerShedder shedder = new SlowConsumerShedder();
+            if (sender.getStreamChannel().attr(SHEDDER_KEY).setIfAbsent(shedder) == null) {
+                sender.addWritabilityListener(shedder);
+            }
+        }
+        return subscription;
     }
 
+    public void register(String key, StreamSender sender) {
+        subscribe(key, sender);
+    }
+
+    /**
+     * Drops the whole topic, cancelling every subscription on it.
+     */
     public void unregister(String key) {
-        if (registry.remove(key) != null) {
+        if (registry.remove(key)) {
             logger.debug("❌ UNREGISTERED: " + key);
         }
     }
 
-    // SEND TO ONE (e.g., "user-123")
-    public void sendTo(String key, String message) {
-        StreamSender sender = registry.get(key);
-        if (sender != null) {
-            sender.send(message);
-        } else {
-            System.err.println("⚠️ Send failed: Key '" + key + "' not found.");
+    // PUBLISH TO ONE TOPIC (e.g., "user-123" or "room-42")
+    public void publish(String topic, String message) {
+        Map<EventLoop, List<StreamSender>> byLoop = subscribersByLoop(topic);
+        if (byLoop != null) {
+            fanOut(byLoop, encode(message));
         }
     }
 
+    /**
+     * Like {@link #publish(String, String)} with an already encoded payload (e.g. protobuf); {@code message}
+     * is not consumed.
+     */
+    public void publish(String topic, EncodedMessage message) {
+        Map<EventLoop, List<StreamSender>> byLoop = subscribersByLoop(topic);
+        if (byLoop != null) {
+            fanOut(byLoop, message.retainedPayload());
+        }
+    }
+
+    private Map<EventLoop, List<StreamSender>> subscribersByLoop(String topic) {
+        Topic t = registry.get(topic);
+        if (t == null || t.size() == 0) {
+            logger.debug("⚠️ Publish skipped: Topic '" + topic + "' has no subscribers.");
+            return null;
+        }
+        Map<EventLoop, List<StreamSender>> byLoop = new IdentityHashMap<>();
+        t.forEach(sender -> groupByLoop(byLoop, sender));
+        return byLoop;
+    }
+
+    public void sendTo(String key, String message) {
+        publish(key, message);
+    }
+
     // BROADCAST (Send to Everyone)
+    // Publish and broadcast share one fan-out: the payload is UTF-8 encoded once into a pooled direct buffer
+    // and every stream gets a retained duplicate (same memory, own indexes). Senders are grouped by event
+    // loop so each loop gets one task that writes to all its streams and then flushes them, instead of one
+    // cross-thread writeAndFlush per subscriber.
     public void broadcast(String message) {
-        registry.values().forEach(sender -> sender.send(message));
+        if (!registry.isEmpty()) {
+            broadcast(encode(message));
+        }
+    }
+
+    /**
+     * Like {@link #broadcast(String)} with an already encoded payload; {@code message} is not consumed.
+     */
+    public void broadcast(EncodedMessage message) {
+        if (!registry.isEmpty()) {
+            broadcast(message.retainedPayload());
+        }
+    }
+
+    private void broadcast(ByteBuf encoded) {
+        // A sender subscribed to several topics still gets the message once
+        Set<StreamSender> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<EventLoop, List<StreamSender>> byLoop = new IdentityHashMap<>();
+        registry.forEachTopic(topic -> topic.forEach(sender -> {
+            if (seen.add(sender)) {
+                groupByLoop(byLoop, sender);
+            }
+        }));
+        fanOut(byLoop, encoded);
+    }
+
+    private static ByteBuf encode(String message) {
+        ByteBuf encoded = PooledByteBufAllocator.DEFAULT.directBuffer(ByteBufUtil.utf8MaxBytes(message));
+        ByteBufUtil.writeUtf8(encoded, message);
+        return encoded;
+    }
+
+    private static void groupByLoop(Map<EventLoop, List<StreamSender>> byLoop, StreamSender sender) {
+        byLoop.computeIfAbsent(sender.getStreamChannel().eventLoop(), loop -> new ArrayList<>()).add(sender);
+    }
+
+    // Takes ownership of encoded
+    private void fanOut(Map<EventLoop, List<StreamSender>> byLoop, ByteBuf encoded) {
+        final long publishedAt = WebTransportMetrics.ENABLED ? System.nanoTime() : 0;
+        try {
+            for (Map.Entry<EventLoop, List<StreamSender>> entry : byLoop.entrySet()) {
+                List<StreamSender> senders = entry.getValue();
+                // One reference per loop task, dropped once the task has handed out its duplicates
+                encoded.retain();
+                try {
+                    entry.getKey().execute(() -> {
+                        try {
+                            for (StreamSender sender : senders) {
+                                sender.write(encoded.retainedDuplicate());
+                            }
+                            for (StreamSender sender : senders) {
+                                sender.flush();
+                            }
+                            if (publishedAt != 0) {
+                                WebTransportMetrics.pushed(senders.size(), System.nanoTime() - publishedAt);
+                            }
+                        } finally {
+                            encoded.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    encoded.release();
+                    logger.warn("⚠️ Push skipped " + senders.size() + " streams on a shut down event loop");
+                }
+            }
+        } finally {
+            encoded.release();
+        }
+    }
+
+    /**
+     * Closes a sender once it has been unwritable for {@link #SHED_SLOW_CONSUMERS_AFTER_MS} without a break:
+     * the check armed when it turns unwritable is cancelled as soon as it turns writable again. Runs on the
+     * stream's event loop only.
+     */
+    private static final class SlowConsumerShedder implements StreamSender.WritabilityListener {
+        private ScheduledFuture<?> check;
+
+        @Override
+        public void writabilityChanged(StreamSender sender, boolean writable) {
+            if (writable) {
+                if (check != null) {
+                    check.cancel(false);
+                    check = null;
+                }
+            } else if (check == null) {
+                check = sender.getStreamChannel().eventLoop().schedule(() -> {
+                    check = null;
+                    if (!sender.isWritable() && sender.getStreamChannel().isActive()) {
+                        logger.warn("🐢 Shedding slow consumer " + sender.getStreamChannel().id().asShortText()
+                                + " (" + sender.queuedBytes() + " bytes queued)");
+                        sender.close();
+                    }
+                }, SHED_SLOW_CONSUMERS_AFTER_MS, TimeUnit.MILLISECONDS);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package io.github.webtransport4j.incubator.applayer;
+
+import io.github.webtransport4j.incubator.routing.RouteHandler;
+import io.github.webtransport4j.incubator.routing.TransportType;
+import io.github.webtransport4j.incubator.routing.WebTransportMessage;
+import io.netty.channel.Channel;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Minimal Socket.IO (engine.io packet types) experiment. Not routed by default; register it with
+ * {@code Router.builder().route("/socket.io/**", SocketIoHandler.INSTANCE)}.
+ */
+public final class SocketIoHandler implements RouteHandler {
+    private static final Logger logger = Logger.getLogger(SocketIoHandler.class.getName());
+
+    public static final SocketIoHandler INSTANCE = new SocketIoHandler();
+
+    private SocketIoHandler() {
+    }
+
+    @Override
+    public void onMessage(WebTransportMessage message) {
+        Channel channel = message.channel();
+        TransportType transportType = message.type();
+        try {
+            String rawContent = message.text();
+            logger.debug("⚡️ [SOCKET.IO] " + transportType + " | Raw: " + rawContent);
+            if (rawContent.isEmpty()) return;
+
+            // 🔍 FIX: Sanitize the input to remove Ghost Bytes (0x00, 0x01, etc)
+            // This finds the first index that IS NOT a control character
+            int validStartIndex = 0;
+            while (validStartIndex < rawContent.length() && rawContent.charAt(validStartIndex) <= 32) {
+                validStartIndex++;
+            }
+
+            // If string was only garbage/control chars
+            if (validStartIndex >= rawContent.length()) {
+                logger.debug("⚠️ Ignored packet containing only control characters.");
+                return;
+            }
+
+            // Extract the clean content
+            String content = rawContent.substring(validStartIndex);
+
+            // 1. Parse Socket.IO Packet Type
+            char packetType = content.charAt(0);
+            String data = (content.length() > 1) ? content.substring(1) : "";
+
+            logger.debug("⚡️ [SOCKET.IO] " + transportType + " | Type: " + packetType + " | Data: " + data);
+
+            // 2. Handle Types
+            switch (packetType) {
+                case '0': // OPEN
+                    logger.info("👋 Received OPEN (Handshake). Data: " + data);
+                    // Standard Socket.IO reply to Open is usually an Open packet back with session ID
+                    message.reply("0{\"sid\":\"" + channel.id().asShortText() + "\",\"upgrades\":[],\"pingInterval\":25000,\"pingTimeout\":20000}");
+                    break;
+
+                case '1': // CLOSE
+                    logger.info("❌ Received CLOSE.");
+                    channel.close();
+                    break;
+
+                case '2': // PING
+                    logger.debug("❤️ Received PING. Sending PONG...");
+                    message.reply("3");
+                    break;
+
+                case '3': // PONG
+                    logger.debug("💓 Received PONG (Client alive).");
+                    break;
+
+                case '4': // MESSAGE
+                    logger.info("📩 Received MESSAGE: " + data);
+                    break;
+
+                default:
+                    logger.warn("⚠️ Unknown Packet Type: '" + packetType + "' (Ascii: " + (int)packetType + ")");
+            }
+
+        } catch (Exception e) {
+            logger.error("Error processing packet", e);
+        } finally {
+            message.release();
+        }
+    }
+}
@@ -6,38 +6,363 @@ import org.apache.log4j.Logger;
  * @author https://github.com/sanjomo
  * @date 20/01/26 1:25 am
  */
+import io.github.webtransport4j.incubator.WriteCoalescer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
-import io.netty.util.CharsetUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class StreamSender {
     private static final Logger logger = Logger.getLogger(StreamSender.class.getName());
+
+    /**
+     * What to do when a slow peer lets the outbound queue reach its byte limit.
+     */
+    public enum OverflowPolicy {
+        /** Reject the new message: {@code send} returns {@code false}. */
+        FAIL_FAST,
+        /** Accept the new message and drop the oldest queued ones until it fits. */
+        DROP_OLDEST,
+        /**
+         * Like {@link #DROP_OLDEST}, and a message sent with a conflation key replaces a still-queued message
+         * with the same key (e.g. only the latest price per symbol matters).
+         */
+        LATEST_VALUE_WINS
+    }
+
+    /**
+     * Notified on the stream's event loop whenever the stream flips between writable and not writable.
+     */
+    public interface WritabilityListener {
+        void writabilityChanged(StreamSender sender, boolean writable);
+    }
+
+    static final long DEFAULT_MAX_QUEUED_BYTES = Long.getLong("webtransport4j.push.maxQueuedBytes", 1024 * 1024);
+    static final OverflowPolicy DEFAULT_POLICY = OverflowPolicy.valueOf(
+            System.getProperty("webtransport4j.push.overflowPolicy", OverflowPolicy.FAIL_FAST.name()));
+
     private final Channel streamChannel;
+    private final OverflowPolicy policy;
+    private final long maxQueuedBytes;
+
+    // Bytes accepted by send() but not yet handed to the channel; reserved on the caller's thread
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final List<WritabilityListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long droppedMessages;
+    private final LongAdder rejectedMessages = new LongAdder();
+
+    // Sends from foreign threads, drained by one event-loop task at a time
+    private final Queue<Pending> inbox = PlatformDependent.newMpscQueue();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainInboxTask = this::drainInbox;
+
+    // Event loop confined: messages held back while the stream is not writable
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<Object, Pending> conflated = new HashMap<>();
 
     public StreamSender(Channel streamChannel) {
+        this(streamChannel, DEFAULT_POLICY, DEFAULT_MAX_QUEUED_BYTES);
+    }
+
+    public StreamSender(Channel streamChannel, OverflowPolicy policy, long maxQueuedBytes) {
         this.streamChannel = streamChannel;
+        this.policy = policy;
+        this.maxQueuedBytes = maxQueuedBytes;
+        streamChannel.pipeline().addLast(new WritabilityHandler());
     }
 
     public Channel getStreamChannel() {
         return streamChannel;
     }
 
-    // Write data to the EXISTING stream
-    public void send(String payload) {
-        if (streamChannel.isActive()) {
-            streamChannel.writeAndFlush(Unpooled.copiedBuffer(payload, CharsetUtil.UTF_8)).addListener(future -> {
-                if (!future.isSuccess()) {
-                    System.err.println("❌ Push Failed: " + future.cause());
-                } else {
-                    logger.debug("✅ Push Sent: " + payload);
+    // Write data to the EXISTING stream, UTF-8 encoded straight into a pooled direct buffer
+    public boolean send(String payload) {
+        ByteBuf encoded = streamChannel.alloc().directBuffer(ByteBufUtil.utf8MaxBytes(payload));
+        ByteBufUtil.writeUtf8(encoded, payload);
+        return send(null, encoded);
+    }
+
+    /**
+     * Writes an already encoded payload and takes ownership of it (it is released if not sent).
+     *
+     * @return {@code false} if the stream is closed or the message was rejected by {@link OverflowPolicy#FAIL_FAST}
+     */
+    public boolean send(ByteBuf payload) {
+        return send(null, payload);
+    }
+
+    /**
+     * Writes a NIO buffer, wrapped without copying; it must not be modified until it was written.
+     */
+    public boolean send(ByteBuffer payload) {
+        return send(null, Unpooled.wrappedBuffer(payload));
+    }
+
+    /**
+     * Writes a payload encoded once for many sends; {@code message} is not consumed.
+     */
+    public boolean send(EncodedMessage message) {
+        return send(null, message.retainedPayload());
+    }
+
+    /**
+     * Like {@link #send(ByteBuf)}; with {@link OverflowPolicy#LATEST_VALUE_WINS} a still-queued message with an
+     * equal {@code conflationKey} is replaced instead of queueing another one.
+     */
+    public boolean send(Object conflationKey, ByteBuf payload) {
+        if (!streamChannel.isActive()) {
+            payload.release();
+            logger.warn("❌ Stream is closed, cannot push.");
+            return false;
+        }
+        int size = payload.readableBytes();
+        if (!reserve(size)) {
+            payload.release();
+            rejectedMessages.increment();
+            return false;
+        }
+        EventLoop loop = streamChannel.eventLoop();
+        if (loop.inEventLoop()) {
+            offer(conflationKey, payload, size, true);
+        } else if (WriteCoalescer.ENABLED) {
+            // Sends from other threads are parked and written by one drain task with a single flush
+            inbox.offer(new Pending(conflationKey, payload, size));
+            if (drainScheduled.compareAndSet(false, true)) {
+                try {
+                    loop.execute(drainInboxTask);
+                } catch (RejectedExecutionException e) {
+                    Pending dropped;
+                    while ((dropped = inbox.poll()) != null) {
+                        queuedBytes.addAndGet(-dropped.size);
+                        dropped.payload.release();
+                    }
+                    return false;
                 }
-            });
+            }
         } else {
-            System.err.println("❌ Stream is closed, cannot push.");
+            try {
+                loop.execute(() -> offer(conflationKey, payload, size, true));
+            } catch (RejectedExecutionException e) {
+                queuedBytes.addAndGet(-size);
+                payload.release();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void drainInbox() {
+        drainScheduled.set(false);
+        int messages = 0;
+        Pending pending;
+        while ((pending = inbox.poll()) != null) {
+            offer(pending.key, pending.payload, pending.size, false);
+            messages++;
         }
+        if (messages > 0) {
+            streamChannel.flush();
+            WriteCoalescer.record(messages, 1);
+        }
+    }
+
+    /**
+     * Batch path for {@link ServerPushService}: queue or write without flushing.
+     * Must be called on the stream's event loop, followed by {@link #flush()}.
+     */
+    void write(ByteBuf payload) {
+        int size = payload.readableBytes();
+        if (!streamChannel.isActive() || !reserve(size)) {
+            payload.release();
+            return;
+        }
+        offer(null, payload, size, false);
+    }
+
+    void flush() {
+        streamChannel.flush();
     }
 
     public void close() {
         streamChannel.close();
     }
-}
\ No newline at end of file
+
+    public boolean isWritable() {
+        return streamChannel.isWritable();
+    }
+
+    /**
+     * Bytes accepted but not yet written to the stream (waiting for writability).
+     */
+    public long queuedBytes() {
+        return queuedBytes.get();
+    }
+
+    public long droppedMessages() {
+        return droppedMessages;
+    }
+
+    public long rejectedMessages() {
+        return rejectedMessages.sum();
+    }
+
+    public OverflowPolicy policy() {
+        return policy;
+    }
+
+    public void addWritabilityListener(WritabilityListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeWritabilityListener(WritabilityListener listener) {
+        listeners.remove(listener);
+    }
+
+    private boolean reserve(int size) {
+        if (policy != OverflowPolicy.FAIL_FAST) {
+            // Always accepted, the oldest queued messages make room on the event loop
+            queuedBytes.addAndGet(size);
+            return true;
+        }
+        for (;;) {
+            long current = queuedBytes.get();
+            // An empty queue accepts any single message, however large
+            if (current > 0 && current + size > maxQueuedBytes) {
+                return false;
+            }
+            if (queuedBytes.compareAndSet(current, current + size)) {
+                return true;
+            }
+        }
+    }
+
+    private void offer(Object conflationKey, ByteBuf payload, int size, boolean flush) {
+        // Fast path: nothing held back and the stream can take more
+        if (queue.isEmpty() && streamChannel.isWritable()) {
+            queuedBytes.addAndGet(-size);
+            streamChannel.write(payload, streamChannel.voidPromise());
+            if (flush) {
+                streamChannel.flush();
+            }
+            return;
+        }
+        if (!streamChannel.isActive()) {
+            queuedBytes.addAndGet(-size);
+            payload.release();
+            return;
+        }
+        enqueue(conflationKey, payload, size);
+        drain(flush);
+    }
+
+    private void enqueue(Object conflationKey, ByteBuf payload, int size) {
+        boolean conflate = conflationKey != null && policy == OverflowPolicy.LATEST_VALUE_WINS;
+        if (conflate) {
+            Pending existing = conflated.get(conflationKey);
+            if (existing != null) {
+                existing.payload.release();
+                queuedBytes.addAndGet(-existing.size);
+                existing.payload = payload;
+                existing.size = size;
+                droppedMessages++;
+                return;
+            }
+        }
+        Pending pending = new Pending(conflate ? conflationKey : null, payload, size);
+        queue.add(pending);
+        if (conflate) {
+            conflated.put(conflationKey, pending);
+        }
+        if (policy != OverflowPolicy.FAIL_FAST) {
+            while (queuedBytes.get() > maxQueuedBytes && queue.size() > 1) {
+                discard(queue.poll());
+                droppedMessages++;
+            }
+        }
+    }
+
+    private void drain(boolean flush) {
+        boolean wrote = false;
+        Pending pending;
+        while (streamChannel.isWritable() && (pending = queue.poll()) != null) {
+            if (pending.key != null) {
+                conflated.remove(pending.key, pending);
+            }
+            queuedBytes.addAndGet(-pending.size);
+            streamChannel.write(pending.payload, streamChannel.voidPromise());
+            wrote = true;
+        }
+        if (wrote && flush) {
+            streamChannel.flush();
+        }
+    }
+
+    private void discard(Pending pending) {
+        if (pending.key != null) {
+            conflated.remove(pending.key, pending);
+        }
+        queuedBytes.addAndGet(-pending.size);
+        pending.payload.release();
+    }
+
+    private void discardAll() {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            discard(pending);
+        }
+    }
+
+    private static final class Pending {
+        final Object key;
+        ByteBuf payload;
+        int size;
+
+        Pending(Object key, ByteBuf payload, int size) {
+            this.key = key;
+            this.payload = payload;
+            this.size = size;
+        }
+    }
+
+    private final class WritabilityHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+            boolean writable = ctx.channel().isWritable();
+            if (writable) {
+                drain(true);
+            }
+            for (WritabilityListener listener : listeners) {
+                listener.writabilityChanged(StreamSender.this, writable);
+            }
+            ctx.fireChannelWritabilityChanged();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            discardAll();
+            ctx.fireChannelInactive();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            // Writes use the void promise, so failures surface here
+            logger.warn("❌ Push Failed: " + cause);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.webtransport4j.incubator.applayer;
+
+/**
+ * A {@link StreamSender} attached to a topic. Cancelling is O(1) and idempotent; it also happens
+ * automatically when the sender's stream closes.
+ */
+public final class Subscription {
+
+    private final Topic topic;
+    private final StreamSender sender;
+    private volatile boolean cancelled;
+
+    Subscription(Topic topic, StreamSender sender) {
+        this.topic = topic;
+        this.sender = sender;
+    }
+
+    public String topic() {
+        return topic.name();
+    }
+
+    public StreamSender sender() {
+        return sender;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        topic.unsubscribe(this);
+    }
+
+    // Guarded by the topic lock
+    boolean markCancelled() {
+        if (cancelled) {
+            return false;
+        }
+        cancelled = true;
+        return true;
+    }
+}
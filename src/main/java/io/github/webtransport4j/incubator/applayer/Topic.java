@@ -0,0 +1,118 @@
+package io.github.webtransport4j.incubator.applayer;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Subscribers of one topic, laid out for cheap publishing.
+ * <p>
+ * Publishers iterate a plain array without locking. Subscribing appends into spare capacity (amortized O(1)),
+ * unsubscribing only flags the entry (O(1)); flagged entries are compacted away in bulk once they make up
+ * half of the array. Mutations never touch a slot a reader may already see, except to append, and a
+ * compaction publishes a fresh array, so readers never observe a torn view.
+ */
+final class Topic {
+
+    private static final Subscription[] EMPTY = new Subscription[0];
+    private static final int MIN_COMPACT = 16;
+
+    private final String name;
+    private final TopicRegistry registry;
+
+    // Written under the lock; count is written last so a reader that sees it also sees the slots.
+    // live is volatile too: publishers check size() without taking the lock
+    private volatile Subscription[] subscribers = EMPTY;
+    private volatile int count;
+    private volatile int live;
+    private int cancelled;
+
+    Topic(String name, TopicRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized Subscription subscribe(StreamSender sender) {
+        Subscription subscription = new Subscription(this, sender);
+        Subscription[] array = subscribers;
+        if (count == array.length) {
+            array = Arrays.copyOf(array, Math.max(4, array.length << 1));
+        }
+        array[count] = subscription;
+        subscribers = array;
+        count = count + 1;
+        live++;
+        return subscription;
+    }
+
+    void unsubscribe(Subscription subscription) {
+        boolean empty;
+        synchronized (this) {
+            if (!subscription.markCancelled()) {
+                return;
+            }
+            live--;
+            cancelled++;
+            if (cancelled >= MIN_COMPACT && cancelled > live) {
+                compact();
+            }
+            empty = live == 0;
+        }
+        if (empty) {
+            registry.removeIfEmpty(this);
+        }
+    }
+
+    synchronized void cancelAll() {
+        Subscription[] array = subscribers;
+        for (int i = 0, n = count; i < n; i++) {
+            if (array[i].markCancelled()) {
+                live--;
+            }
+        }
+        subscribers = EMPTY;
+        count = 0;
+        cancelled = 0;
+    }
+
+    synchronized boolean isEmpty() {
+        return live == 0;
+    }
+
+    int size() {
+        return live;
+    }
+
+    /**
+     * Lock-free iteration over the live subscribers.
+     */
+    void forEach(Consumer<StreamSender> action) {
+        int n = count;
+        Subscription[] array = subscribers;
+        // After a compaction the array may be shorter than the count we read
+        n = Math.min(n, array.length);
+        for (int i = 0; i < n; i++) {
+            Subscription subscription = array[i];
+            if (subscription != null && !subscription.isCancelled()) {
+                action.accept(subscription.sender());
+            }
+        }
+    }
+
+    private void compact() {
+        Subscription[] array = subscribers;
+        Subscription[] compacted = new Subscription[Math.max(4, live << 1)];
+        int j = 0;
+        for (int i = 0, n = count; i < n; i++) {
+            if (!array[i].isCancelled()) {
+                compacted[j++] = array[i];
+            }
+        }
+        subscribers = compacted;
+        count = j;
+        cancelled = 0;
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.webtransport4j.incubator.applayer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import io.netty.util.NettyRuntime;
+import io.netty.util.internal.MathUtil;
+
+/**
+ * Topic name -> {@link Topic}, split over independent shards so that subscribe/publish traffic on hundreds
+ * of thousands of topics does not funnel through one map.
+ */
+final class TopicRegistry {
+
+    private final ConcurrentHashMap<String, Topic>[] shards;
+    private final int mask;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TopicRegistry(int shardCount) {
+        int n = MathUtil.findNextPositivePowerOfTwo(Math.max(1, shardCount));
+        shards = new ConcurrentHashMap[n];
+        for (int i = 0; i < n; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        mask = n - 1;
+    }
+
+    TopicRegistry() {
+        this(4 * NettyRuntime.availableProcessors());
+    }
+
+    private ConcurrentHashMap<String, Topic> shard(String topic) {
+        int h = topic.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    Subscription subscribe(String topic, StreamSender sender) {
+        Subscription[] result = new Subscription[1];
+        // Subscribing inside compute() makes it atomic with removeIfEmpty()
+        shard(topic).compute(topic, (name, existing) -> {
+            Topic t = existing != null ? existing : new Topic(name, this);
+            result[0] = t.subscribe(sender);
+            return t;
+        });
+        return result[0];
+    }
+
+    Topic get(String topic) {
+        return shard(topic).get(topic);
+    }
+
+    /**
+     * Drops the topic and cancels all of its subscriptions.
+     */
+    boolean remove(String topic) {
+        Topic removed = shard(topic).remove(topic);
+        if (removed == null) {
+            return false;
+        }
+        removed.cancelAll();
+        return true;
+    }
+
+    void removeIfEmpty(Topic topic) {
+        shard(topic.name()).computeIfPresent(topic.name(),
+                (name, existing) -> existing == topic && topic.isEmpty() ? null : existing);
+    }
+
+    boolean isEmpty() {
+        for (ConcurrentHashMap<String, Topic> shard : shards) {
+            if (!shard.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int topicCount() {
+        int n = 0;
+        for (ConcurrentHashMap<String, Topic> shard : shards) {
+            n += shard.size();
+        }
+        return n;
+    }
+
+    void forEachTopic(Consumer<Topic> action) {
+        for (ConcurrentHashMap<String, Topic> shard : shards) {
+            shard.values().forEach(action);
+        }
+    }
+}
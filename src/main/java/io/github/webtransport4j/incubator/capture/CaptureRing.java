@@ -0,0 +1,112 @@
+package io.github.webtransport4j.incubator.capture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, preallocated off-heap ring of capture records: many producers (event loops), one consumer
+ * (the writer thread).
+ * <p>
+ * Each record occupies one slot of {@code HEADER_SIZE + snapLength} bytes. A producer claims a slot with a
+ * CAS, writes into it with absolute (index-based) accessors and publishes its sequence number; it never
+ * waits. When the consumer falls a whole ring behind, new records are dropped and counted instead of
+ * overwriting unread ones.
+ */
+final class CaptureRing {
+
+    // Slot layout
+    static final int TIMESTAMP = 0;       // long, epoch millis
+    static final int STREAM_ID = 8;       // long, -1 for datagrams
+    static final int SESSION_ID = 16;     // long, -1 if unknown
+    static final int ORIGINAL_LENGTH = 24; // int
+    static final int CAPTURED_LENGTH = 28; // short
+    static final int KIND = 30;           // byte
+    static final int CONNECTION_ID = 32;  // 8 bytes, ChannelId short text (ASCII)
+    static final int HEADER_SIZE = 40;
+
+    static final byte STREAM_IN = 0;
+    static final byte STREAM_OUT = 1;
+    static final byte DATAGRAM_IN = 2;
+    static final byte DATAGRAM_OUT = 3;
+
+    private final ByteBuf memory;
+    private final int slots;
+    private final int slotSize;
+    private final int snapLength;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // Sequence number last published into each slot
+    private final AtomicLongArray published;
+    private final LongAdder dropped = new LongAdder();
+
+    CaptureRing(int slots, int snapLength) {
+        this.slots = slots;
+        this.snapLength = snapLength;
+        this.slotSize = HEADER_SIZE + snapLength;
+        this.memory = Unpooled.directBuffer(slots * slotSize, slots * slotSize);
+        this.published = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Copies the first {@code snapLength} readable bytes of {@code data} (indices untouched) with their
+     * metadata. Never blocks.
+     */
+    void offer(byte kind, byte[] connectionId, long streamId, long sessionId, ByteBuf data) {
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail.get() >= slots) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+
+        int slot = (int) (seq % slots);
+        int base = slot * slotSize;
+        int length = data.readableBytes();
+        int captured = Math.min(length, snapLength);
+        memory.setLong(base + TIMESTAMP, System.currentTimeMillis());
+        memory.setLong(base + STREAM_ID, streamId);
+        memory.setLong(base + SESSION_ID, sessionId);
+        memory.setInt(base + ORIGINAL_LENGTH, length);
+        memory.setShort(base + CAPTURED_LENGTH, captured);
+        memory.setByte(base + KIND, kind);
+        memory.setBytes(base + CONNECTION_ID, connectionId, 0, 8);
+        memory.setBytes(base + HEADER_SIZE, data, data.readerIndex(), captured);
+        published.lazySet(slot, seq);
+    }
+
+    /**
+     * Consumer side: hands the next published record to {@code reader} and frees its slot.
+     *
+     * @return {@code false} if there is no record to read yet
+     */
+    boolean poll(RecordReader reader) {
+        long seq = tail.get();
+        int slot = (int) (seq % slots);
+        if (published.get(slot) != seq) {
+            return false;
+        }
+        reader.read(memory.slice(slot * slotSize, slotSize));
+        tail.lazySet(seq + 1);
+        return true;
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    interface RecordReader {
+        /**
+         * {@code record} is only valid during the call.
+         */
+        void read(ByteBuf record);
+    }
+}
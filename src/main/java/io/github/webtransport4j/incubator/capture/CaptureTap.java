@@ -0,0 +1,36 @@
+package io.github.webtransport4j.incubator.capture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Records every {@link ByteBuf} read from or written to the channel it sits on. Installed first in the pipeline
+ * of captured connections and streams only, so it sees wire-level bytes; stateless and shared.
+ */
+@ChannelHandler.Sharable
+final class CaptureTap extends ChannelDuplexHandler {
+    static final String NAME = "wt-capture";
+    static final CaptureTap INSTANCE = new CaptureTap();
+
+    private CaptureTap() {
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            WireCapture.record(ctx.channel(), true, (ByteBuf) msg);
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            WireCapture.record(ctx.channel(), false, (ByteBuf) msg);
+        }
+        ctx.write(msg, promise);
+    }
+}
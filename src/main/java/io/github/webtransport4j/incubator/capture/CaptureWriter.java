@@ -0,0 +1,98 @@
+package io.github.webtransport4j.incubator.capture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Background daemon that drains the {@link CaptureRing} into a JSON-lines file, one object per record:
+ * <pre>
+ * {"ts":1735000000000,"conn":"3f2a9c1d","kind":"stream-in","stream":4,"session":0,"len":512,"hex":"4041..."}
+ * </pre>
+ * All formatting (hex, JSON) happens here, off the event loops.
+ */
+final class CaptureWriter implements Runnable, CaptureRing.RecordReader {
+    private static final Logger logger = Logger.getLogger(CaptureWriter.class.getName());
+
+    private static final String[] KINDS = {"stream-in", "stream-out", "datagram-in", "datagram-out"};
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final CaptureRing ring;
+    private final Path file;
+    private final StringBuilder line = new StringBuilder(512);
+    private Writer out;
+
+    CaptureWriter(CaptureRing ring, Path file) {
+        this.ring = ring;
+        this.file = file;
+    }
+
+    @Override
+    public void run() {
+        try {
+            out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+            logger.info("🎥 Wire capture writing to " + file.toAbsolutePath());
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean any = false;
+                while (ring.poll(this)) {
+                    any = true;
+                }
+                if (any) {
+                    out.flush();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Wire capture stopped, cannot write " + file, e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignore) {
+                    // best effort
+                }
+            }
+        }
+    }
+
+    @Override
+    public void read(ByteBuf record) {
+        line.setLength(0);
+        line.append("{\"ts\":").append(record.getLong(CaptureRing.TIMESTAMP))
+                .append(",\"conn\":\"").append(record.toString(CaptureRing.CONNECTION_ID, 8, StandardCharsets.US_ASCII))
+                .append("\",\"kind\":\"").append(KINDS[record.getByte(CaptureRing.KIND)]).append('"');
+        long streamId = record.getLong(CaptureRing.STREAM_ID);
+        if (streamId >= 0) {
+            line.append(",\"stream\":").append(streamId);
+        }
+        long sessionId = record.getLong(CaptureRing.SESSION_ID);
+        if (sessionId >= 0) {
+            line.append(",\"session\":").append(sessionId);
+        }
+        line.append(",\"len\":").append(record.getInt(CaptureRing.ORIGINAL_LENGTH))
+                .append(",\"hex\":\"")
+                .append(ByteBufUtil.hexDump(record, CaptureRing.HEADER_SIZE,
+                        record.getUnsignedShort(CaptureRing.CAPTURED_LENGTH)))
+                .append("\"}\n");
+        try {
+            out.write(line.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.webtransport4j.incubator.capture;
+
+import io.github.webtransport4j.incubator.WebTransportSession;
+import io.github.webtransport4j.incubator.WebTransportUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.quic.QuicChannel;
+import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Opt-in wire capture for chosen connections or sessions.
+ * <p>
+ * Captured channels get a {@link CaptureTap} first in their pipeline. It copies each read and write (up to
+ * {@code -Dwebtransport4j.capture.snapLength} bytes) into a preallocated off-heap ring. A daemon thread drains
+ * the ring to a JSON-lines file ({@code -Dwebtransport4j.capture.file}). Channels that are not captured carry
+ * no handler, so when capture is off the only cost is one static boolean read per new stream.
+ * <p>
+ * Selection:
+ * <ul>
+ * <li>{@code -Dwebtransport4j.capture=true} samples new connections ({@code sampleBy=connection}, the
+ * default) or new sessions ({@code sampleBy=session}). The chance is {@code sampleRate} (0..1), and
+ * {@code remote=ip1,ip2} can restrict it to some peers.</li>
+ * <li>{@link #arm(QuicChannel)} / {@link #arm(WebTransportSession)} capture one connection or session at
+ * runtime, whether the flag is set or not. Only streams opened after arming are tapped.</li>
+ * </ul>
+ */
+public final class WireCapture {
+    private static final Logger logger = Logger.getLogger(WireCapture.class.getName());
+
+    static final boolean ENABLED = Boolean.getBoolean("webtransport4j.capture");
+    static final String SAMPLE_BY = System.getProperty("webtransport4j.capture.sampleBy", "connection");
+    static final double SAMPLE_RATE =
+            Double.parseDouble(System.getProperty("webtransport4j.capture.sampleRate", "1.0"));
+    static final Set<String> REMOTES = parseRemotes(System.getProperty("webtransport4j.capture.remote", ""));
+    // The captured length is stored in an unsigned short slot field
+    static final int SNAP_LENGTH =
+            Math.max(0, Math.min(Integer.getInteger("webtransport4j.capture.snapLength", 128), 0xFFFF));
+    static final int SLOTS = checkSlots(Integer.getInteger("webtransport4j.capture.slots", 8192), SNAP_LENGTH);
+    static final String FILE = System.getProperty("webtransport4j.capture.file", "wt-capture.jsonl");
+
+    // Set on captured connections and on the CONNECT stream of captured sessions: the connection ID bytes
+    private static final AttributeKey<byte[]> CAPTURED = AttributeKey.valueOf("wt.capture");
+
+    // The only thing the stream hooks look at while nothing is captured
+    private static volatile boolean active = ENABLED;
+
+    private WireCapture() {
+    }
+
+    // Ring and writer thread, created on first use
+    private static final class Holder {
+        static final CaptureRing RING = new CaptureRing(SLOTS, SNAP_LENGTH);
+
+        static {
+            Thread writer = new DefaultThreadFactory("wt-capture-writer", true)
+                    .newThread(new CaptureWriter(RING, Paths.get(FILE)));
+            writer.start();
+        }
+    }
+
+    /**
+     * Hook for every new QUIC connection: applies connection sampling.
+     */
+    public static void onConnection(QuicChannel connection) {
+        if (ENABLED && "connection".equals(SAMPLE_BY) && sampled(connection)) {
+            arm(connection);
+        }
+    }
+
+    /**
+     * Hook for every new session: applies session sampling.
+     */
+    public static void onSession(WebTransportSession session) {
+        if (ENABLED && "session".equals(SAMPLE_BY) && sampled(session.quicChannel())) {
+            arm(session);
+        }
+    }
+
+    /**
+     * Hook for every new stream: taps it if its connection is captured.
+     */
+    public static void onStream(QuicStreamChannel stream) {
+        if (active && stream.parent().hasAttr(CAPTURED)) {
+            tap(stream);
+        }
+    }
+
+    /**
+     * Hook for a stream bound to {@code session}: taps it if the session is captured.
+     */
+    public static void onSessionStream(WebTransportSession session, QuicStreamChannel stream) {
+        if (active && session.connectStream().hasAttr(CAPTURED)) {
+            tap(stream);
+        }
+    }
+
+    /**
+     * Captures the datagrams of {@code connection} and every stream it opens from now on.
+     */
+    public static void arm(QuicChannel connection) {
+        active = true;
+        connection.attr(CAPTURED).set(connectionId(connection));
+        tap(connection);
+        logger.info("🎥 Capturing connection " + connection.id().asShortText() + " " + connection.remoteSocketAddress());
+    }
+
+    /**
+     * Captures the CONNECT stream of {@code session} and every stream bound to it from now on.
+     */
+    public static void arm(WebTransportSession session) {
+        active = true;
+        QuicStreamChannel connectStream = session.connectStream();
+        connectStream.attr(CAPTURED).set(connectionId(session.quicChannel()));
+        tap(connectStream);
+        logger.info("🎥 Capturing session " + session.sessionStreamId + " on "
+                + session.quicChannel().id().asShortText());
+    }
+
+    /**
+     * Records dropped because the writer fell a whole ring behind.
+     */
+    public static long dropped() {
+        return active ? Holder.RING.dropped() : 0;
+    }
+
+    static void record(Channel channel, boolean inbound, ByteBuf data) {
+        byte kind;
+        long streamId = -1;
+        long sessionId = -1;
+        Channel connection;
+        if (channel instanceof QuicStreamChannel) {
+            kind = inbound ? CaptureRing.STREAM_IN : CaptureRing.STREAM_OUT;
+            streamId = ((QuicStreamChannel) channel).streamId();
+            connection = channel.parent();
+            WebTransportSession session = WebTransportSession.of(channel);
+            if (session != null) {
+                sessionId = session.sessionStreamId;
+            } else {
+                Long id = channel.attr(WebTransportUtils.SESSION_ID_KEY).get();
+                sessionId = id != null ? id : -1;
+            }
+        } else {
+            // Datagram: the quarter stream ID is the first bytes of the payload
+            kind = inbound ? CaptureRing.DATAGRAM_IN : CaptureRing.DATAGRAM_OUT;
+            connection = channel;
+        }
+        byte[] connectionId = connection.attr(CAPTURED).get();
+        if (connectionId == null) {
+            connectionId = connectionId(connection);
+        }
+        Holder.RING.offer(kind, connectionId, streamId, sessionId, data);
+    }
+
+    private static void tap(Channel channel) {
+        if (channel.pipeline().context(CaptureTap.NAME) == null) {
+            channel.pipeline().addFirst(CaptureTap.NAME, CaptureTap.INSTANCE);
+        }
+    }
+
+    private static boolean sampled(QuicChannel connection) {
+        if (!REMOTES.isEmpty()) {
+            SocketAddress remote = connection.remoteSocketAddress();
+            if (!(remote instanceof InetSocketAddress)
+                    || !REMOTES.contains(((InetSocketAddress) remote).getAddress().getHostAddress())) {
+                return false;
+            }
+        }
+        return SAMPLE_RATE >= 1.0 || ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE;
+    }
+
+    private static byte[] connectionId(Channel connection) {
+        return Arrays.copyOf(connection.id().asShortText().getBytes(StandardCharsets.US_ASCII), 8);
+    }
+
+    // The ring is one direct buffer, so it has to fit an int
+    static int checkSlots(int slots, int snapLength) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("webtransport4j.capture.slots must be positive: " + slots);
+        }
+        long ringBytes = (long) slots * (CaptureRing.HEADER_SIZE + snapLength);
+        if (ringBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("webtransport4j.capture.slots (" + slots + ") x slot size ("
+                    + (CaptureRing.HEADER_SIZE + snapLength) + " bytes) = " + ringBytes
+                    + " bytes, more than one ring buffer can hold (" + Integer.MAX_VALUE + ")");
+        }
+        return slots;
+    }
+
+    private static Set<String> parseRemotes(String value) {
+        if (value.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> remotes = new HashSet<>();
+        for (String remote : value.split(",")) {
+            remotes.add(remote.trim());
+        }
+        return remotes;
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.webtransport4j.incubator.dispatch;
+
+import io.netty.channel.Channel;
+
+/**
+ * Runs application work for inbound messages off (or on) the I/O thread.
+ * <p>
+ * Implementations must keep tasks submitted for the same {@link Channel} in submission order:
+ * a QUIC stream is an ordered byte stream, so its chunks must reach the application in order.
+ * Tasks for different channels may run concurrently.
+ */
+public interface DispatchExecutor {
+
+    /**
+     * Schedules {@code task} for the given stream / connection channel.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the task cannot be accepted (shut down, or
+     *         a bounded queue is full); the task is then not run
+     */
+    void execute(Channel channel, Runnable task);
+
+    /**
+     * Stops accepting work and releases the underlying threads, if any.
+     */
+    void shutdown();
+}
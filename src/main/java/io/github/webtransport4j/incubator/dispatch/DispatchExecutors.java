@@ -0,0 +1,86 @@
+package io.github.webtransport4j.incubator.dispatch;
+
+import io.netty.util.NettyRuntime;
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Factory for the built-in {@link DispatchExecutor}s.
+ * <p>
+ * The process-wide default is picked with {@code -Dwebtransport4j.dispatch=striped|virtual|eventloop}
+ * (default {@code striped}); {@code -Dwebtransport4j.dispatch.threads} sizes the striped executor.
+ */
+public final class DispatchExecutors {
+    private static final Logger logger = Logger.getLogger(DispatchExecutors.class.getName());
+
+    private static final String MODE = System.getProperty("webtransport4j.dispatch", "striped");
+    private static final int THREADS = Integer.getInteger("webtransport4j.dispatch.threads",
+            NettyRuntime.availableProcessors());
+
+    private static volatile DispatchExecutor defaultExecutor;
+
+    private DispatchExecutors() {
+    }
+
+    /**
+     * Lazily created shared executor configured via system properties.
+     */
+    public static DispatchExecutor defaultExecutor() {
+        DispatchExecutor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (DispatchExecutors.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    executor = fromMode(MODE);
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * {@code lanes} single-threaded lanes; a stream always maps to the same lane.
+     */
+    public static DispatchExecutor striped(int lanes) {
+        return new StripedDispatchExecutor(lanes);
+    }
+
+    /**
+     * Runs handlers directly on the channel's event loop. Only for handlers that never block.
+     */
+    public static DispatchExecutor eventLoop() {
+        return EventLoopDispatchExecutor.INSTANCE;
+    }
+
+    /**
+     * One virtual thread per drain, still ordered per stream. Requires JDK 21+;
+     * on older runtimes this logs a warning and falls back to {@link #striped(int)}.
+     */
+    public static DispatchExecutor virtualThreads() {
+        try {
+            // Looked up reflectively so the jar keeps its Java 8 baseline
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return new SerialDispatchExecutor((ExecutorService) factory.invoke(null));
+        } catch (ReflectiveOperationException e) {
+            logger.warn("⚠️ Virtual threads not available on this JVM, using " + THREADS + " striped threads");
+            return striped(THREADS);
+        }
+    }
+
+    static DispatchExecutor fromMode(String mode) {
+        switch (mode) {
+            case "virtual":
+                return virtualThreads();
+            case "eventloop":
+                return eventLoop();
+            case "striped":
+                return striped(THREADS);
+            default:
+                logger.warn("⚠️ Unknown webtransport4j.dispatch mode '" + mode + "', using striped");
+                return striped(THREADS);
+        }
+    }
+}
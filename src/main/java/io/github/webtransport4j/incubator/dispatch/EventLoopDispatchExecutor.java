@@ -0,0 +1,29 @@
+package io.github.webtransport4j.incubator.dispatch;
+
+import io.netty.channel.Channel;
+
+/**
+ * Runs the task inline on the channel's event loop.
+ * Cheapest option (no hand-off at all) but only safe for handlers that never block.
+ */
+final class EventLoopDispatchExecutor implements DispatchExecutor {
+
+    static final EventLoopDispatchExecutor INSTANCE = new EventLoopDispatchExecutor();
+
+    private EventLoopDispatchExecutor() {
+    }
+
+    @Override
+    public void execute(Channel channel, Runnable task) {
+        if (channel.eventLoop().inEventLoop()) {
+            task.run();
+        } else {
+            channel.eventLoop().execute(task);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        // Event loops are owned by the server bootstrap
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.webtransport4j.incubator.dispatch;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.util.AttributeKey;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks bytes that were handed to a {@link DispatchExecutor} but not yet processed, for one
+ * QUIC stream or one QUIC connection.
+ * <p>
+ * When pending bytes reach the high watermark, {@code autoRead} is switched off on the channel, so we stop
+ * reading and QUIC flow control stops granting credit to the peer. Once the application drains below
+ * the low watermark, reading resumes. Pause/resume always happens on the channel's event loop;
+ * {@link #dequeued(int)} may be called from any thread.
+ * <p>
+ * Watermarks (bytes) are configured with
+ * {@code -Dwebtransport4j.inbound.stream.highWatermark / lowWatermark} and
+ * {@code -Dwebtransport4j.inbound.connection.highWatermark / lowWatermark}.
+ */
+public final class InboundBackpressure {
+    private static final Logger logger = Logger.getLogger(InboundBackpressure.class.getName());
+
+    private static final AttributeKey<InboundBackpressure> KEY = AttributeKey.valueOf("wt.inbound.backpressure");
+
+    static final long STREAM_HIGH_WATERMARK =
+            Long.getLong("webtransport4j.inbound.stream.highWatermark", 1024 * 1024);
+    static final long STREAM_LOW_WATERMARK =
+            Long.getLong("webtransport4j.inbound.stream.lowWatermark", 256 * 1024);
+    static final long CONNECTION_HIGH_WATERMARK =
+            Long.getLong("webtransport4j.inbound.connection.highWatermark", 8 * 1024 * 1024);
+    static final long CONNECTION_LOW_WATERMARK =
+            Long.getLong("webtransport4j.inbound.connection.lowWatermark", 2 * 1024 * 1024);
+
+    // Process-wide totals, across all streams and connections
+    private static final LongAdder TOTAL_PAUSES = new LongAdder();
+    private static final LongAdder TOTAL_PAUSED_NANOS = new LongAdder();
+
+    private final Channel channel;
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicBoolean resumeScheduled = new AtomicBoolean();
+
+    // Written on the event loop only, volatile so metrics can read them from anywhere
+    private volatile boolean paused;
+    private volatile long pauseCount;
+    private volatile long pausedNanos;
+    private volatile long lastPausedAtMillis;
+    private long pausedSinceNanos;
+
+    private InboundBackpressure(Channel channel, long highWatermark, long lowWatermark) {
+        if (lowWatermark > highWatermark) {
+            throw new IllegalArgumentException(
+                    "lowWatermark (" + lowWatermark + ") > highWatermark (" + highWatermark + ")");
+        }
+        this.channel = channel;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    /**
+     * Returns (creating on first use) the tracker of a stream or connection channel.
+     */
+    public static InboundBackpressure of(Channel channel) {
+        InboundBackpressure pressure = channel.attr(KEY).get();
+        if (pressure == null) {
+            InboundBackpressure created = channel instanceof QuicStreamChannel
+                    ? new InboundBackpressure(channel, STREAM_HIGH_WATERMARK, STREAM_LOW_WATERMARK)
+                    : new InboundBackpressure(channel, CONNECTION_HIGH_WATERMARK, CONNECTION_LOW_WATERMARK);
+            pressure = channel.attr(KEY).setIfAbsent(created);
+            if (pressure == null) {
+                pressure = created;
+            }
+        }
+        return pressure;
+    }
+
+    /**
+     * Returns the tracker of the channel, or {@code null} if nothing was ever dispatched on it.
+     */
+    public static InboundBackpressure peek(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    /**
+     * Must be called on the event loop, right before the bytes are handed to the executor.
+     */
+    public void enqueued(int bytes) {
+        if (pending.addAndGet(bytes) >= highWatermark && !paused) {
+            pause();
+        }
+    }
+
+    /**
+     * Called from the dispatch thread once the application is done with the bytes.
+     */
+    public void dequeued(int bytes) {
+        if (pending.addAndGet(-bytes) <= lowWatermark && paused
+                && resumeScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(this::maybeResume);
+        }
+    }
+
+    private void pause() {
+        paused = true;
+        pauseCount++;
+        pausedSinceNanos = System.nanoTime();
+        lastPausedAtMillis = System.currentTimeMillis();
+        TOTAL_PAUSES.increment();
+        channel.config().setAutoRead(false);
+        if (logger.isDebugEnabled()) {
+            logger.debug("⏸️ Backpressure: paused reads on " + channel.id().asShortText()
+                    + " (pending " + pending.get() + " bytes >= " + highWatermark + ")");
+        }
+        // The executor may have drained everything before paused was set, so no dequeued() will resume us
+        if (pending.get() <= lowWatermark && resumeScheduled.compareAndSet(false, true)) {
+            maybeResume();
+        }
+    }
+
+    private void maybeResume() {
+        resumeScheduled.set(false);
+        if (!paused || pending.get() > lowWatermark) {
+            return;
+        }
+        paused = false;
+        long elapsed = System.nanoTime() - pausedSinceNanos;
+        pausedNanos += elapsed;
+        TOTAL_PAUSED_NANOS.add(elapsed);
+        channel.config().setAutoRead(true);
+        if (logger.isDebugEnabled()) {
+            logger.debug("▶️ Backpressure: resumed reads on " + channel.id().asShortText()
+                    + " after " + (elapsed / 1_000_000) + " ms");
+        }
+    }
+
+    public long pendingBytes() {
+        return pending.get();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public long pauseCount() {
+        return pauseCount;
+    }
+
+    /**
+     * Total time reads were paused, not counting a pause still in progress.
+     */
+    public long pausedNanos() {
+        return pausedNanos;
+    }
+
+    /**
+     * Wall-clock time of the most recent pause, or 0 if this channel was never paused.
+     */
+    public long lastPausedAtMillis() {
+        return lastPausedAtMillis;
+    }
+
+    public static long totalPauses() {
+        return TOTAL_PAUSES.sum();
+    }
+
+    public static long totalPausedNanos() {
+        return TOTAL_PAUSED_NANOS.sum();
+    }
+}
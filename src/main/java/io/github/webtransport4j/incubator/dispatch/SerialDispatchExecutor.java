@@ -0,0 +1,74 @@
+package io.github.webtransport4j.incubator.dispatch;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import org.apache.log4j.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps per-channel order on top of an unordered executor (e.g. virtual-thread-per-task).
+ * Each channel gets a tiny run queue; at most one drain task per channel is in flight.
+ */
+final class SerialDispatchExecutor implements DispatchExecutor {
+    private static final Logger logger = Logger.getLogger(SerialDispatchExecutor.class.getName());
+
+    private static final AttributeKey<Lane> LANE_KEY = AttributeKey.valueOf("wt.dispatch.lane");
+
+    private final ExecutorService delegate;
+
+    SerialDispatchExecutor(ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Channel channel, Runnable task) {
+        Lane lane = channel.attr(LANE_KEY).get();
+        if (lane == null) {
+            Lane created = new Lane();
+            lane = channel.attr(LANE_KEY).setIfAbsent(created);
+            if (lane == null) {
+                lane = created;
+            }
+        }
+        lane.tasks.add(task);
+        lane.schedule();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private final class Lane implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                delegate.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    // Never let one bad task wedge the lane for the rest of the stream
+                    logger.error("Dispatch task failed", t);
+                }
+            }
+            scheduled.set(false);
+            // A producer may have enqueued after our last poll but before we cleared the flag
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
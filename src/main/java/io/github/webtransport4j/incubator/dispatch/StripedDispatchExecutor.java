@@ -0,0 +1,40 @@
+package io.github.webtransport4j.incubator.dispatch;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * N single-threaded lanes. A channel is pinned to one lane by its id hash,
+ * so per-stream order is kept while different streams spread across cores.
+ */
+final class StripedDispatchExecutor implements DispatchExecutor {
+
+    private final ExecutorService[] lanes;
+
+    StripedDispatchExecutor(int lanes) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("lanes must be >= 1: " + lanes);
+        }
+        ThreadFactory threadFactory = new DefaultThreadFactory("wt-dispatch", true);
+        this.lanes = new ExecutorService[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+    }
+
+    @Override
+    public void execute(Channel channel, Runnable task) {
+        lanes[(channel.id().hashCode() & Integer.MAX_VALUE) % lanes.length].execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
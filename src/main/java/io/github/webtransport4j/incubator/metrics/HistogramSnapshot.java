@@ -0,0 +1,74 @@
+package io.github.webtransport4j.incubator.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time view of a {@link LatencyHistogram}. Values are in microseconds; also the JMX representation
+ * (an MXBean composite).
+ */
+public final class HistogramSnapshot {
+    private final long count;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    @ConstructorProperties({"count", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public HistogramSnapshot(long count, long meanMicros, long p50Micros, long p90Micros, long p99Micros,
+            long p999Micros, long maxMicros) {
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    static HistogramSnapshot ofNanos(long count, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+            long p999Nanos, long maxNanos) {
+        return new HistogramSnapshot(count, micros(meanNanos), micros(p50Nanos), micros(p90Nanos),
+                micros(p99Nanos), micros(p999Nanos), micros(maxNanos));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + " mean=" + meanMicros + "us p50=" + p50Micros + "us p90=" + p90Micros
+                + "us p99=" + p99Micros + "us p99.9=" + p999Micros + "us max=" + maxMicros + "us";
+    }
+}
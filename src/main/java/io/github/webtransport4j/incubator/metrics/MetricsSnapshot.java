@@ -0,0 +1,34 @@
+package io.github.webtransport4j.incubator.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Pull view of {@link WebTransportMetrics}: the same counters and latencies as the MXBean, taken at one moment.
+ */
+public final class MetricsSnapshot {
+    private final Map<String, Long> counters;
+    private final Map<String, HistogramSnapshot> latencies;
+
+    MetricsSnapshot(Map<String, Long> counters, Map<String, HistogramSnapshot> latencies) {
+        this.counters = Collections.unmodifiableMap(counters);
+        this.latencies = Collections.unmodifiableMap(latencies);
+    }
+
+    public Map<String, Long> counters() {
+        return counters;
+    }
+
+    public Map<String, HistogramSnapshot> latencies() {
+        return latencies;
+    }
+
+    public long counter(String name) {
+        Long value = counters.get(name);
+        return value != null ? value : 0;
+    }
+
+    public HistogramSnapshot latency(String name) {
+        return latencies.get(name);
+    }
+}
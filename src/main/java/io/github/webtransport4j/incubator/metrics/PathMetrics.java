@@ -0,0 +1,25 @@
+package io.github.webtransport4j.incubator.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies of one session path. Obtained once per message or session through
+ * {@link WebTransportMetrics#path(String)}.
+ */
+public final class PathMetrics {
+    final String path;
+    final LongAdder sessions = new LongAdder();
+    final LongAdder messages = new LongAdder();
+    final LongAdder bytes = new LongAdder();
+    final LatencyHistogram handshake = new LatencyHistogram();
+    final LatencyHistogram dispatchWait = new LatencyHistogram();
+    final LatencyHistogram handler = new LatencyHistogram();
+
+    PathMetrics(String path) {
+        this.path = path;
+    }
+
+    public String path() {
+        return path;
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.webtransport4j.incubator.metrics;
+
+import io.github.webtransport4j.incubator.SegmentedEgressAllocator;
+import io.github.webtransport4j.incubator.WebTransportDatagramHandler;
+import io.github.webtransport4j.incubator.WriteCoalescer;
+import io.github.webtransport4j.incubator.capture.WireCapture;
+import io.github.webtransport4j.incubator.dispatch.InboundBackpressure;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Process-wide counters and latency histograms, globally and per session path.
+ * <p>
+ * Recording is a {@link LongAdder} add or a {@link LatencyHistogram} bucket increment; nothing allocates and
+ * nothing locks. Callers check {@link #ENABLED} before taking timestamps, so
+ * {@code -Dwebtransport4j.metrics=false} also removes the {@code System.nanoTime()} calls. Read the numbers
+ * with {@link #snapshot()} or over JMX ({@link #registerMBean()}); the existing per-component counters
+ * (datagrams, backpressure, write coalescing, GSO, capture) are folded into the same view.
+ */
+public final class WebTransportMetrics implements WebTransportMetricsMXBean {
+    private static final Logger logger = Logger.getLogger(WebTransportMetrics.class.getName());
+
+    public static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("webtransport4j.metrics", "true"));
+    // Paths come from clients: beyond this many distinct ones, the rest share one bucket
+    static final int MAX_PATHS = Integer.getInteger("webtransport4j.metrics.maxPaths", 256);
+    static final String OTHER_PATHS = "*";
+
+    public static final String OBJECT_NAME = "io.github.webtransport4j:type=Metrics";
+
+    private static final LongAdder SESSIONS_OPENED = new LongAdder();
+    private static final LongAdder SESSIONS_CLOSED = new LongAdder();
+    private static final LongAdder STREAMS_OPENED = new LongAdder();
+    private static final LongAdder BYTES_IN = new LongAdder();
+    private static final LongAdder MESSAGES_DISPATCHED = new LongAdder();
+    private static final LongAdder DISPATCH_QUEUED = new LongAdder();
+    private static final LongAdder PUSH_MESSAGES = new LongAdder();
+
+    private static final LatencyHistogram HANDSHAKE = new LatencyHistogram();
+    private static final LatencyHistogram DISPATCH_WAIT = new LatencyHistogram();
+    private static final LatencyHistogram HANDLER = new LatencyHistogram();
+    private static final LatencyHistogram PUSH = new LatencyHistogram();
+
+    private static final ConcurrentHashMap<String, PathMetrics> PATHS = new ConcurrentHashMap<>();
+
+    private static final WebTransportMetrics INSTANCE = new WebTransportMetrics();
+    private static volatile boolean registered;
+
+    private WebTransportMetrics() {
+    }
+
+    /**
+     * Metrics of {@code path}; a map lookup, so resolve it once per session or message, not per field.
+     */
+    public static PathMetrics path(String path) {
+        String key = path != null ? path : "?";
+        PathMetrics metrics = PATHS.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (PATHS.size() >= MAX_PATHS) {
+            key = OTHER_PATHS;
+        }
+        return PATHS.computeIfAbsent(key, PathMetrics::new);
+    }
+
+    /**
+     * A session was accepted. {@code handshakeNanos} is the time since the QUIC connection was created,
+     * or a negative value when this is not the first session on the connection.
+     */
+    public static void sessionOpened(String path, long handshakeNanos) {
+        if (!ENABLED) {
+            return;
+        }
+        SESSIONS_OPENED.increment();
+        PathMetrics metrics = path(path);
+        metrics.sessions.increment();
+        if (handshakeNanos >= 0) {
+            HANDSHAKE.record(handshakeNanos);
+            metrics.handshake.record(handshakeNanos);
+        }
+    }
+
+    public static void sessionClosed() {
+        if (ENABLED) {
+            SESSIONS_CLOSED.increment();
+        }
+    }
+
+    public static void streamOpened() {
+        if (ENABLED) {
+            STREAMS_OPENED.increment();
+        }
+    }
+
+    public static void bytesIn(int bytes) {
+        if (ENABLED) {
+            BYTES_IN.add(bytes);
+        }
+    }
+
+    public static void dispatchQueued() {
+        DISPATCH_QUEUED.increment();
+    }
+
+    /**
+     * A queued message was refused by the dispatch executor and dropped.
+     */
+    public static void dispatchRejected() {
+        DISPATCH_QUEUED.decrement();
+    }
+
+    /**
+     * A message left the dispatch queue: it waited {@code waitNanos} for a thread, then the handler ran
+     * for {@code handlerNanos}.
+     */
+    public static void dispatched(PathMetrics path, int bytes, long waitNanos, long handlerNanos) {
+        DISPATCH_QUEUED.decrement();
+        MESSAGES_DISPATCHED.increment();
+        DISPATCH_WAIT.record(waitNanos);
+        HANDLER.record(handlerNanos);
+        path.messages.increment();
+        path.bytes.add(bytes);
+        path.dispatchWait.record(waitNanos);
+        path.handler.record(handlerNanos);
+    }
+
+    /**
+     * A published message was written and flushed to {@code streams} push streams of one event loop,
+     * {@code latencyNanos} after it was published.
+     */
+    public static void pushed(int streams, long latencyNanos) {
+        PUSH_MESSAGES.add(streams);
+        PUSH.record(latencyNanos);
+    }
+
+    public static MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(INSTANCE.getCounters(), INSTANCE.getLatencies());
+    }
+
+    /**
+     * Registers the MXBean with the platform MBean server; idempotent. Does nothing if metrics are disabled.
+     */
+    public static synchronized void registerMBean() {
+        if (!ENABLED || registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            registered = true;
+            logger.debug("📊 Metrics registered as " + OBJECT_NAME);
+        } catch (JMException e) {
+            logger.warn("⚠️ Could not register metrics MXBean: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        long opened = SESSIONS_OPENED.sum();
+        long closed = SESSIONS_CLOSED.sum();
+        counters.put("sessionsOpened", opened);
+        counters.put("sessionsClosed", closed);
+        counters.put("sessionsActive", opened - closed);
+        counters.put("streamsOpened", STREAMS_OPENED.sum());
+        counters.put("bytesIn", BYTES_IN.sum());
+        counters.put("messagesDispatched", MESSAGES_DISPATCHED.sum());
+        counters.put("dispatchQueueDepth", DISPATCH_QUEUED.sum());
+        counters.put("pushMessages", PUSH_MESSAGES.sum());
+        counters.put("datagramsDelivered", WebTransportDatagramHandler.deliveredDatagrams());
+        counters.put("datagramsDropped", WebTransportDatagramHandler.droppedDatagrams());
+        counters.put("backpressurePauses", InboundBackpressure.totalPauses());
+        counters.put("backpressurePausedMillis", TimeUnit.NANOSECONDS.toMillis(InboundBackpressure.totalPausedNanos()));
+        counters.put("coalescedMessages", WriteCoalescer.totalMessages());
+        counters.put("coalescedFlushes", WriteCoalescer.totalFlushes());
+        counters.put("gsoSends", SegmentedEgressAllocator.segmentedPackets());
+        counters.put("gsoSegments", SegmentedEgressAllocator.segments());
+        counters.put("captureDropped", WireCapture.dropped());
+        for (PathMetrics path : PATHS.values()) {
+            String prefix = "path[" + path.path + "].";
+            counters.put(prefix + "sessions", path.sessions.sum());
+            counters.put(prefix + "messages", path.messages.sum());
+            counters.put(prefix + "bytes", path.bytes.sum());
+        }
+        return counters;
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getLatencies() {
+        Map<String, HistogramSnapshot> latencies = new LinkedHashMap<>();
+        latencies.put("handshake", HANDSHAKE.snapshot());
+        latencies.put("dispatchWait", DISPATCH_WAIT.snapshot());
+        latencies.put("handler", HANDLER.snapshot());
+        latencies.put("push", PUSH.snapshot());
+        for (PathMetrics path : PATHS.values()) {
+            String prefix = "path[" + path.path + "].";
+            latencies.put(prefix + "handshake", path.handshake.snapshot());
+            latencies.put(prefix + "dispatchWait", path.dispatchWait.snapshot());
+            latencies.put(prefix + "handler", path.handler.snapshot());
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.webtransport4j.incubator.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link WebTransportMetrics}, registered as {@code io.github.webtransport4j:type=Metrics}.
+ * Latency keys are {@code handshake}, {@code dispatchWait}, {@code handler} and {@code push}, plus
+ * {@code path[<path>].<name>} for each path.
+ */
+public interface WebTransportMetricsMXBean {
+
+    Map<String, Long> getCounters();
+
+    Map<String, HistogramSnapshot> getLatencies();
+}
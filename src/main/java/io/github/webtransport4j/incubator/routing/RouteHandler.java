@@ -0,0 +1,17 @@
+package io.github.webtransport4j.incubator.routing;
+
+import io.github.webtransport4j.incubator.WebTransportSession;
+
+/**
+ * Application logic for the sessions of one route. Resolved by the {@link Router} when the CONNECT request
+ * is accepted and kept on the {@link WebTransportSession}, so dispatching a message does not look at the
+ * path again.
+ */
+public interface RouteHandler {
+
+    /**
+     * Called on the dispatch executor, in order per channel. Ownership of {@code message} passes to the
+     * handler, also when it throws: release it (or hand its content on) when done.
+     */
+    void onMessage(WebTransportMessage message);
+}
@@ -0,0 +1,151 @@
+package io.github.webtransport4j.incubator.routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Route table for WebTransport sessions, matched once per CONNECT request.
+ * <p>
+ * Patterns are compiled into a trie of path segments. A segment is either a literal, {@code *} (exactly one
+ * segment) or, as the last segment only, {@code **} (any remaining segments, including none):
+ * <pre>
+ * Router router = Router.builder()
+ *         .route("/chat", chat)
+ *         .route("/rooms/*", room)
+ *         .route("/feeds/**", feed)
+ *         .build();
+ * </pre>
+ * Literals win over {@code *}, which wins over {@code **}. The query string is ignored, and empty segments
+ * are skipped, so {@code /chat/} and {@code //chat} are both {@code /chat}. A built router is immutable
+ * and safe to share between event loops.
+ */
+public final class Router {
+
+    static final String ONE_SEGMENT = "*";
+    static final String ANY_SEGMENTS = "**";
+
+    private final Node root;
+
+    private Router(Node root) {
+        this.root = root;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The handler of the most specific route matching {@code path}, or {@code null} if none does.
+     */
+    public RouteHandler match(CharSequence path) {
+        return path == null ? null : match(root, segments(path), 0);
+    }
+
+    private static RouteHandler match(Node node, List<String> segments, int index) {
+        if (index == segments.size()) {
+            if (node.handler != null) {
+                return node.handler;
+            }
+            return node.anySegments;
+        }
+        Node literal = node.literals.get(segments.get(index));
+        if (literal != null) {
+            RouteHandler handler = match(literal, segments, index + 1);
+            if (handler != null) {
+                return handler;
+            }
+        }
+        if (node.oneSegment != null) {
+            RouteHandler handler = match(node.oneSegment, segments, index + 1);
+            if (handler != null) {
+                return handler;
+            }
+        }
+        return node.anySegments;
+    }
+
+    /**
+     * Splits a request path (or pattern) into its non-empty segments, dropping the query string.
+     */
+    static List<String> segments(CharSequence path) {
+        List<String> segments = new ArrayList<>(4);
+        int length = path.length();
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? path.charAt(i) : '/';
+            if (c == '?' || c == '#') {
+                c = '/';
+                length = i;
+            }
+            if (c == '/') {
+                if (i > start) {
+                    segments.add(path.subSequence(start, i).toString());
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    private static final class Node {
+        final Map<String, Node> literals = new HashMap<>(4);
+        Node oneSegment;
+        RouteHandler handler;
+        RouteHandler anySegments;
+    }
+
+    public static final class Builder {
+        private final Node root = new Node();
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a route. Registering the same pattern twice is an error.
+         */
+        public Builder route(String pattern, RouteHandler handler) {
+            if (built) {
+                throw new IllegalStateException("Router already built");
+            }
+            if (handler == null) {
+                throw new NullPointerException("handler");
+            }
+            List<String> segments = segments(pattern);
+            Node node = root;
+            for (int i = 0; i < segments.size(); i++) {
+                String segment = segments.get(i);
+                if (ANY_SEGMENTS.equals(segment)) {
+                    if (i != segments.size() - 1) {
+                        throw new IllegalArgumentException("'**' must be the last segment: " + pattern);
+                    }
+                    if (node.anySegments != null) {
+                        throw new IllegalArgumentException("Duplicate route: " + pattern);
+                    }
+                    node.anySegments = handler;
+                    return this;
+                }
+                if (ONE_SEGMENT.equals(segment)) {
+                    if (node.oneSegment == null) {
+                        node.oneSegment = new Node();
+                    }
+                    node = node.oneSegment;
+                } else {
+                    node = node.literals.computeIfAbsent(segment, s -> new Node());
+                }
+            }
+            if (node.handler != null) {
+                throw new IllegalArgumentException("Duplicate route: " + pattern);
+            }
+            node.handler = handler;
+            return this;
+        }
+
+        public Router build() {
+            built = true;
+            return new Router(root);
+        }
+    }
+}
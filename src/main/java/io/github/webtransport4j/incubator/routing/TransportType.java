@@ -0,0 +1,13 @@
+package io.github.webtransport4j.incubator.routing;
+
+/**
+ * How a message reached the server.
+ */
+public enum TransportType {
+    /** A client-initiated bidirectional stream ({@code 0x41}); replies go back on the same stream. */
+    BIDIRECTIONAL,
+    /** A client-initiated unidirectional stream ({@code 0x54}); there is no way back on it. */
+    UNIDIRECTIONAL,
+    /** An HTTP/3 datagram of the session. */
+    DATAGRAM
+}
@@ -0,0 +1,188 @@
+package io.github.webtransport4j.incubator.routing;
+
+import io.github.webtransport4j.incubator.WebTransportSession;
+import io.github.webtransport4j.incubator.WebTransportUtils;
+import io.github.webtransport4j.incubator.WriteCoalescer;
+import io.github.webtransport4j.incubator.applayer.EncodedMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One inbound message handed to a {@link RouteHandler}: a retained slice of the bytes as they were read (no
+ * copy), plus where they came from. The handler owns it and must {@link #release()} it, or pass the content on
+ * (e.g. {@link #reply(ByteBuf)} it back), when done; it may keep it beyond the call.
+ * <p>
+ * Nothing is decoded up front: {@link #text()} decodes UTF-8 on first use and caches the result, so binary
+ * protocols never pay for it.
+ */
+public final class WebTransportMessage extends DefaultByteBufHolder {
+
+    private final Channel channel;
+    private final WebTransportSession session;
+    private final TransportType type;
+    // Streaming framing mode: the announced length of the message this chunk belongs to, -1 for a whole message
+    private final long messageLength;
+    private final boolean last;
+    private String text;
+
+    public WebTransportMessage(Channel channel, WebTransportSession session, TransportType type, ByteBuf content) {
+        this(channel, session, type, content, -1, true);
+    }
+
+    /**
+     * A chunk of a length-prefixed message too large to buffer (see
+     * {@link io.github.webtransport4j.incubator.WebTransportMessageChunk}).
+     */
+    public WebTransportMessage(Channel channel, WebTransportSession session, TransportType type, ByteBuf content,
+                               long messageLength, boolean last) {
+        super(content);
+        this.channel = channel;
+        this.session = session;
+        this.type = type;
+        this.messageLength = messageLength;
+        this.last = last;
+    }
+
+    /**
+     * The stream the message arrived on, or the QUIC connection for datagrams.
+     */
+    public Channel channel() {
+        return channel;
+    }
+
+    /**
+     * The session the message belongs to; {@code null} if the channel is not bound to one.
+     */
+    public WebTransportSession session() {
+        return session;
+    }
+
+    public TransportType type() {
+        return type;
+    }
+
+    /**
+     * The session path, or {@code "?"} without a session.
+     */
+    public String path() {
+        return session != null ? session.path() : "?";
+    }
+
+    /**
+     * True if this is one piece of a message the framing decoder streams instead of buffering; the chunks of a
+     * message arrive in order, and the one with {@link #isLast()} set completes it.
+     */
+    public boolean isChunk() {
+        return messageLength >= 0;
+    }
+
+    /**
+     * For a chunk, the total length of its message as announced by the length prefix; otherwise the length of
+     * the content.
+     */
+    public long messageLength() {
+        return messageLength >= 0 ? messageLength : content().readableBytes();
+    }
+
+    /**
+     * False for every chunk of a streamed message but the final one; always true for a whole message.
+     */
+    public boolean isLast() {
+        return last;
+    }
+
+    /**
+     * The content decoded as UTF-8, decoded once. For a chunk that is only this piece, which may end in the
+     * middle of a character. The content itself is left untouched.
+     */
+    public String text() {
+        if (text == null) {
+            text = content().toString(StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+
+    /**
+     * Sends {@code payload} back the way this message came (same bidirectional stream, or a datagram of the
+     * same session) and takes ownership of it. Replies queued during one event-loop iteration share a flush.
+     *
+     * @throws IllegalStateException for a unidirectional stream, which has no way back
+     */
+    public void reply(ByteBuf payload) {
+        if (type == TransportType.BIDIRECTIONAL) {
+            WriteCoalescer.of(channel).write(payload);
+        } else if (type == TransportType.DATAGRAM) {
+            if (session != null) {
+                session.sendDatagram(payload);
+            } else {
+                // No session to take the quarter stream ID from
+                ByteBuf datagram = channel.alloc().directBuffer(1 + payload.readableBytes());
+                WebTransportUtils.writeVarInt(datagram, 0);
+                datagram.writeBytes(payload);
+                payload.release();
+                WriteCoalescer.of(channel).write(datagram);
+            }
+        } else {
+            payload.release();
+            throw new IllegalStateException("Cannot reply on a unidirectional stream");
+        }
+    }
+
+    /**
+     * Like {@link #reply(ByteBuf)} for a NIO buffer, wrapped without copying; it must not be modified until
+     * the reply was written.
+     */
+    public void reply(ByteBuffer payload) {
+        reply(Unpooled.wrappedBuffer(payload));
+    }
+
+    /**
+     * Like {@link #reply(ByteBuf)} with a payload encoded once for many sends; {@code message} is not consumed.
+     */
+    public void reply(EncodedMessage message) {
+        reply(message.retainedPayload());
+    }
+
+    /**
+     * Like {@link #reply(ByteBuf)}, UTF-8 encoding {@code text} straight into a pooled direct buffer (for a
+     * datagram, right behind the session's prefix).
+     */
+    public void reply(CharSequence text) {
+        if (type == TransportType.DATAGRAM && session != null) {
+            session.sendDatagram(text);
+            return;
+        }
+        ByteBuf buffer = channel.alloc().directBuffer(ByteBufUtil.utf8MaxBytes(text));
+        ByteBufUtil.writeUtf8(buffer, text);
+        reply(buffer);
+    }
+
+    @Override
+    public WebTransportMessage replace(ByteBuf content) {
+        return new WebTransportMessage(channel, session, type, content, messageLength, last);
+    }
+
+    @Override
+    public WebTransportMessage retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public WebTransportMessage retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public WebTransportMessage touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+}
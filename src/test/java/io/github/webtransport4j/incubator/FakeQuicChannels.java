@@ -0,0 +1,66 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.quic.QuicChannel;
+import io.netty.handler.codec.quic.QuicStreamChannel;
+import io.netty.handler.codec.quic.QuicStreamType;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * QUIC connections and streams backed by an {@link EmbeddedChannel}: every {@link Channel} method (pipeline,
+ * attributes, allocator, event loop, writes) goes to the embedded channel, so what is written can be read back
+ * with {@link EmbeddedChannel#readOutbound()}. Only the stream ID, type and parent are QUIC specific; any other
+ * QUIC operation throws.
+ */
+public final class FakeQuicChannels {
+
+    private FakeQuicChannels() {
+    }
+
+    public static QuicChannel connection(EmbeddedChannel channel) {
+        return (QuicChannel) proxy(QuicChannel.class, channel, null, -1, null);
+    }
+
+    public static QuicStreamChannel stream(EmbeddedChannel channel, QuicChannel parent, long streamId,
+                                           QuicStreamType type) {
+        return (QuicStreamChannel) proxy(QuicStreamChannel.class, channel, parent, streamId, type);
+    }
+
+    private static Object proxy(Class<? extends Channel> type, EmbeddedChannel channel, QuicChannel parent,
+                                long streamId, QuicStreamType streamType) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "streamId":
+                    return streamId;
+                case "type":
+                    return streamType;
+                case "parent":
+                    return parent;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    // By signature: QUIC interfaces redeclare some Channel methods
+                    Method target;
+                    try {
+                        target = channel.getClass().getMethod(method.getName(), method.getParameterTypes());
+                    } catch (NoSuchMethodException e) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    Object result;
+                    try {
+                        result = target.invoke(channel, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    // Fluent calls (read(), flush()) hand back the proxy, not the embedded channel
+                    return result == channel ? proxy : result;
+            }
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+import org.junit.rules.ExternalResource;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs every buffer of a test under {@link ResourceLeakDetector.Level#PARANOID} and fails the test if one of
+ * them was garbage collected without being released. The detectors are created when the buffer classes load,
+ * so the counting factory is installed by this class's initializer: declare the rule before any buffer is
+ * touched, e.g. as the first field of the test.
+ */
+public final class LeakDetectionRule extends ExternalResource {
+
+    private static final LongAdder LEAKS = new LongAdder();
+
+    static {
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+        ResourceLeakDetectorFactory.setResourceLeakDetectorFactory(new ResourceLeakDetectorFactory() {
+            @Override
+            @SuppressWarnings("deprecation")
+            public <T> ResourceLeakDetector<T> newResourceLeakDetector(Class<T> resource, int samplingInterval,
+                                                                       long maxActive) {
+                return new CountingDetector<>(resource, samplingInterval);
+            }
+        });
+    }
+
+    private long before;
+
+    @Override
+    protected void before() throws InterruptedException {
+        before = collect();
+    }
+
+    @Override
+    protected void after() {
+        try {
+            assertEquals("leaked buffers", before, collect());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Leaks only surface when the detector tracks the next buffer, so a few are allocated after each collection.
+     */
+    private static long collect() throws InterruptedException {
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+            Thread.sleep(20);
+            for (int j = 0; j < 16; j++) {
+                ByteBuf probe = PooledByteBufAllocator.DEFAULT.directBuffer(1);
+                probe.release();
+            }
+        }
+        return LEAKS.sum();
+    }
+
+    private static final class CountingDetector<T> extends ResourceLeakDetector<T> {
+
+        CountingDetector(Class<T> resource, int samplingInterval) {
+            super(resource, samplingInterval);
+        }
+
+        @Override
+        protected boolean needReport() {
+            return true;
+        }
+
+        @Override
+        protected void reportTracedLeak(String resourceType, String records) {
+            LEAKS.increment();
+            super.reportTracedLeak(resourceType, records);
+        }
+
+        @Override
+        protected void reportUntracedLeak(String resourceType) {
+            LEAKS.increment();
+            super.reportUntracedLeak(resourceType);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.webtransport4j.incubator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http3.Http3DataFrame;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class WebTransportCapsulesTest {
+
+    @Rule
+    public final LeakDetectionRule leaks = new LeakDetectionRule();
+
+    private static String closeReason(String reason) {
+        Http3DataFrame frame = WebTransportCapsules.closeSession(PooledByteBufAllocator.DEFAULT, 7, reason);
+        try {
+            ByteBuf capsule = frame.content();
+            assertEquals(WebTransportCapsules.CLOSE_WEBTRANSPORT_SESSION,
+                    WebTransportUtils.readVariableLengthInt(capsule));
+            long length = WebTransportUtils.readVariableLengthInt(capsule);
+            assertEquals(capsule.readableBytes(), length);
+            assertEquals(7, capsule.readInt());
+            return capsule.toString(StandardCharsets.UTF_8);
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    public void shortReasonIsKept() {
+        assertEquals("going away", closeReason("going away"));
+    }
+
+    @Test
+    public void longReasonIsCutOnACharacterBoundary() {
+        StringBuilder reason = new StringBuilder();
+        for (int i = 0; i < WebTransportCapsules.MAX_CLOSE_MESSAGE_BYTES - 1; i++) {
+            reason.append('a');
+        }
+        // Two bytes, straddling the limit: dropped whole
+        reason.append("éé");
+        String sent = closeReason(reason.toString());
+        assertEquals(WebTransportCapsules.MAX_CLOSE_MESSAGE_BYTES - 1, sent.length());
+        assertEquals(reason.substring(0, WebTransportCapsules.MAX_CLOSE_MESSAGE_BYTES - 1), sent);
+    }
+}
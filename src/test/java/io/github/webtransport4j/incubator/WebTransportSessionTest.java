@@ -0,0 +1,101 @@
+package io.github.webtransport4j.incubator;
+
+import io.github.webtransport4j.incubator.applayer.EchoHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.quic.QuicStreamType;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WebTransportSessionTest {
+
+    @Rule
+    public final LeakDetectionRule leaks = new LeakDetectionRule();
+
+    private final EmbeddedChannel connection = new EmbeddedChannel();
+    private final EmbeddedChannel connectStream = new EmbeddedChannel();
+
+    @After
+    public void tearDown() {
+        connectStream.finishAndReleaseAll();
+        connection.finishAndReleaseAll();
+    }
+
+    private WebTransportSession session(long sessionId) {
+        return new WebTransportSession(sessionId, FakeQuicChannels.stream(connectStream,
+                FakeQuicChannels.connection(connection), sessionId, QuicStreamType.BIDIRECTIONAL), "/test",
+                EchoHandler.INSTANCE);
+    }
+
+    @Test
+    public void uniStreamHeaderIsEncodedOnceAndShared() {
+        WebTransportSession session = session(4);
+        ByteBuf first = session.uniStreamHeader();
+        ByteBuf second = session.uniStreamHeader();
+        try {
+            // 0x54 takes a 2-byte varint, session 4 one byte
+            assertEquals("405404", ByteBufUtil.hexDump(first));
+            assertEquals("405404", ByteBufUtil.hexDump(second));
+            assertTrue(first.isDirect());
+            assertEquals(first.memoryAddress(), second.memoryAddress());
+        } finally {
+            first.release();
+            second.release();
+        }
+        // Drops the cached reference: the leak rule fails the test otherwise
+        session.terminate();
+    }
+
+    @Test
+    public void uniStreamHeaderAfterTerminateIsNotCached() {
+        WebTransportSession session = session(4);
+        session.terminate();
+        ByteBuf header = session.uniStreamHeader();
+        assertEquals("405404", ByteBufUtil.hexDump(header));
+        assertEquals(1, header.refCnt());
+        header.release();
+    }
+
+    @Test
+    public void sendDatagramPrefixesTheQuarterStreamId() {
+        ByteBuf payload = Unpooled.copiedBuffer("ping", StandardCharsets.UTF_8);
+        session(4).sendDatagram(payload);
+        assertEquals(0, payload.refCnt());
+
+        connection.runPendingTasks();
+        ByteBuf datagram = connection.readOutbound();
+        try {
+            assertTrue(datagram.isDirect());
+            assertEquals("01" + ByteBufUtil.hexDump("ping".getBytes(StandardCharsets.UTF_8)),
+                    ByteBufUtil.hexDump(datagram));
+        } finally {
+            datagram.release();
+        }
+        assertNull(connection.readOutbound());
+    }
+
+    @Test
+    public void sendDatagramEncodesTextBehindATwoBytePrefix() {
+        // Quarter stream ID 100 needs a 2-byte varint
+        session(400).sendDatagram("héllo");
+
+        connection.runPendingTasks();
+        ByteBuf datagram = connection.readOutbound();
+        try {
+            assertEquals(0x40, datagram.readUnsignedByte());
+            assertEquals(100, datagram.readUnsignedByte());
+            assertEquals("héllo", datagram.toString(StandardCharsets.UTF_8));
+        } finally {
+            datagram.release();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.webtransport4j.incubator.applayer;
+
+import io.github.webtransport4j.incubator.LeakDetectionRule;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ServerPushServiceTest {
+
+    @Rule
+    public final LeakDetectionRule leaks = new LeakDetectionRule();
+
+    private final ServerPushService push = new ServerPushService();
+    private final EmbeddedChannel first = new EmbeddedChannel();
+    private final EmbeddedChannel second = new EmbeddedChannel();
+
+    @After
+    public void tearDown() {
+        first.finishAndReleaseAll();
+        second.finishAndReleaseAll();
+    }
+
+    /**
+     * Runs the fan-out task queued on {@code channel}'s event loop and returns the one message it wrote.
+     */
+    private static String received(EmbeddedChannel channel) {
+        channel.runPendingTasks();
+        ByteBuf message = channel.readOutbound();
+        try {
+            return message.toString(StandardCharsets.UTF_8);
+        } finally {
+            message.release();
+            assertNull(channel.readOutbound());
+        }
+    }
+
+    @Test
+    public void publishReachesEverySubscriberOfTheTopic() {
+        push.subscribe("room-42", new StreamSender(first));
+        push.subscribe("room-42", new StreamSender(second));
+
+        push.publish("room-42", "hello");
+
+        assertEquals("hello", received(first));
+        assertEquals("hello", received(second));
+    }
+
+    @Test
+    public void publishSkipsOtherTopics() {
+        push.subscribe("room-1", new StreamSender(first));
+        push.subscribe("room-2", new StreamSender(second));
+
+        push.publish("room-1", "hello");
+        push.publish("nobody", "lost");
+
+        assertEquals("hello", received(first));
+        second.runPendingTasks();
+        assertNull(second.readOutbound());
+    }
+
+    @Test
+    public void broadcastSendsOncePerSender() {
+        StreamSender sender = new StreamSender(first);
+        push.subscribe("user-1", sender);
+        push.subscribe("room-42", sender);
+        push.subscribe("user-2", new StreamSender(second));
+
+        push.broadcast("news");
+
+        assertEquals("news", received(first));
+        assertEquals("news", received(second));
+    }
+
+    @Test
+    public void encodedMessageIsNotConsumed() {
+        push.subscribe("room-42", new StreamSender(first));
+        EncodedMessage message = EncodedMessage.utf8("twice");
+        try {
+            push.publish("room-42", message);
+            assertEquals("twice", received(first));
+            push.broadcast(message);
+            assertEquals("twice", received(first));
+            assertEquals(1, message.refCnt());
+        } finally {
+            message.release();
+        }
+    }
+
+    @Test
+    public void closedStreamIsUnsubscribed() {
+        push.subscribe("room-42", new StreamSender(first));
+        push.subscribe("room-42", new StreamSender(second));
+        first.close();
+
+        push.publish("room-42", "hello");
+
+        first.runPendingTasks();
+        assertNull(first.readOutbound());
+        assertEquals("hello", received(second));
+    }
+}
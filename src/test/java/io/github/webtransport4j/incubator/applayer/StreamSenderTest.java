@@ -0,0 +1,116 @@
+package io.github.webtransport4j.incubator.applayer;
+
+import io.github.webtransport4j.incubator.LeakDetectionRule;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamSenderTest {
+
+    @Rule
+    public final LeakDetectionRule leaks = new LeakDetectionRule();
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private static ByteBuf payload(String text) {
+        return Unpooled.directBuffer().writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void setWritable(boolean writable) {
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+        // The writability event is fired from the event loop
+        channel.runPendingTasks();
+    }
+
+    @Test
+    public void sendEncodesIntoAPooledDirectBuffer() {
+        StreamSender sender = new StreamSender(channel);
+        assertTrue(sender.send("héllo"));
+
+        ByteBuf written = channel.readOutbound();
+        try {
+            assertTrue(written.isDirect());
+            assertEquals("héllo", written.toString(StandardCharsets.UTF_8));
+        } finally {
+            written.release();
+        }
+        assertEquals(0, sender.queuedBytes());
+    }
+
+    @Test
+    public void sendOnClosedStreamReleasesThePayload() {
+        StreamSender sender = new StreamSender(channel);
+        channel.close();
+        ByteBuf payload = payload("late");
+        assertFalse(sender.send(payload));
+        assertEquals(0, payload.refCnt());
+    }
+
+    @Test
+    public void failFastRejectsOnceTheQueueIsFull() {
+        StreamSender sender = new StreamSender(channel, StreamSender.OverflowPolicy.FAIL_FAST, 8);
+        setWritable(false);
+        assertTrue(sender.send("12345678"));
+        ByteBuf rejected = payload("9");
+        assertFalse(sender.send(rejected));
+        assertEquals(0, rejected.refCnt());
+        assertEquals(8, sender.queuedBytes());
+        assertEquals(1, sender.rejectedMessages());
+
+        // Writable again: the queued message goes out
+        setWritable(true);
+        ByteBuf written = channel.readOutbound();
+        try {
+            assertEquals("12345678", written.toString(StandardCharsets.UTF_8));
+        } finally {
+            written.release();
+        }
+        assertEquals(0, sender.queuedBytes());
+    }
+
+    @Test
+    public void latestValueWinsReplacesQueuedMessageWithSameKey() {
+        StreamSender sender = new StreamSender(channel, StreamSender.OverflowPolicy.LATEST_VALUE_WINS, 1024);
+        setWritable(false);
+        ByteBuf stale = payload("ACME 101");
+        assertTrue(sender.send("ACME", stale));
+        assertTrue(sender.send("ACME", payload("ACME 102")));
+        assertEquals(0, stale.refCnt());
+        assertEquals(1, sender.droppedMessages());
+
+        setWritable(true);
+        ByteBuf written = channel.readOutbound();
+        try {
+            assertEquals("ACME 102", written.toString(StandardCharsets.UTF_8));
+        } finally {
+            written.release();
+        }
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void queuedMessagesAreReleasedWhenTheStreamCloses() {
+        StreamSender sender = new StreamSender(channel);
+        setWritable(false);
+        ByteBuf queued = payload("never sent");
+        assertTrue(sender.send(queued));
+        channel.close();
+        assertEquals(0, queued.refCnt());
+        assertEquals(0, sender.queuedBytes());
+    }
+}
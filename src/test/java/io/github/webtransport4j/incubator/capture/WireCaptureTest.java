@@ -0,0 +1,24 @@
+package io.github.webtransport4j.incubator.capture;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class WireCaptureTest {
+
+    @Test
+    public void slotsThatFitTheRingAreKept() {
+        assertEquals(8192, WireCapture.checkSlots(8192, 0xFFFF));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ringOverTwoGigabytesIsRejected() {
+        // 40 000 x (40 + 65535) bytes does not fit an int
+        WireCapture.checkSlots(40_000, 0xFFFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noSlotsIsRejected() {
+        WireCapture.checkSlots(0, 128);
+    }
+}
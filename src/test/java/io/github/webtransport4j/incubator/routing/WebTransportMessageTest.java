@@ -0,0 +1,130 @@
+package io.github.webtransport4j.incubator.routing;
+
+import io.github.webtransport4j.incubator.LeakDetectionRule;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WebTransportMessageTest {
+
+    @Rule
+    public final LeakDetectionRule leaks = new LeakDetectionRule();
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private static ByteBuf inbound(String text) {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        buf.writeCharSequence(text, StandardCharsets.UTF_8);
+        return buf;
+    }
+
+    @Test
+    public void messageOwnsARetainedSliceOfTheRead() {
+        ByteBuf read = inbound("hello");
+        WebTransportMessage message = new WebTransportMessage(channel, null, TransportType.BIDIRECTIONAL,
+                read.retainedSlice());
+        // The pipeline lets go of the read, the message keeps the memory alive
+        read.release();
+        assertEquals(1, read.refCnt());
+        assertEquals("hello", message.text());
+
+        assertTrue(message.release());
+        assertEquals(0, read.refCnt());
+    }
+
+    @Test
+    public void replyWritesBackOnTheStream() {
+        WebTransportMessage message = new WebTransportMessage(channel, null, TransportType.BIDIRECTIONAL,
+                inbound("ping"));
+        message.reply("pong");
+        message.release();
+
+        channel.runPendingTasks();
+        ByteBuf reply = channel.readOutbound();
+        try {
+            assertEquals("pong", reply.toString(StandardCharsets.UTF_8));
+        } finally {
+            reply.release();
+        }
+    }
+
+    @Test
+    public void replyWithoutSessionUsesQuarterStreamIdZero() {
+        WebTransportMessage message = new WebTransportMessage(channel, null, TransportType.DATAGRAM,
+                inbound("ping"));
+        message.reply(inbound("pong"));
+        message.release();
+
+        channel.runPendingTasks();
+        ByteBuf datagram = channel.readOutbound();
+        try {
+            assertEquals("00" + ByteBufUtil.hexDump("pong".getBytes(StandardCharsets.UTF_8)),
+                    ByteBufUtil.hexDump(datagram));
+        } finally {
+            datagram.release();
+        }
+    }
+
+    @Test
+    public void replyOnUnidirectionalStreamReleasesThePayload() {
+        WebTransportMessage message = new WebTransportMessage(channel, null, TransportType.UNIDIRECTIONAL,
+                inbound("ping"));
+        ByteBuf payload = inbound("pong");
+        try {
+            message.reply(payload);
+            fail("a unidirectional stream has no way back");
+        } catch (IllegalStateException expected) {
+            assertEquals(0, payload.refCnt());
+        } finally {
+            message.release();
+        }
+    }
+
+    @Test
+    public void chunkKeepsItsMetadataAcrossReplace() {
+        WebTransportMessage chunk = new WebTransportMessage(channel, null, TransportType.BIDIRECTIONAL,
+                inbound("abc"), 10, false);
+        assertTrue(chunk.isChunk());
+        assertEquals(10, chunk.messageLength());
+        assertFalse(chunk.isLast());
+
+        WebTransportMessage copy = chunk.replace(inbound("def"));
+        chunk.release();
+        try {
+            assertTrue(copy.isChunk());
+            assertEquals(10, copy.messageLength());
+            assertFalse(copy.isLast());
+        } finally {
+            copy.release();
+        }
+    }
+
+    @Test
+    public void wholeMessageReportsItsContentLength() {
+        WebTransportMessage message = new WebTransportMessage(channel, null, TransportType.BIDIRECTIONAL,
+                inbound("hello"));
+        try {
+            assertFalse(message.isChunk());
+            assertTrue(message.isLast());
+            assertEquals(5, message.messageLength());
+        } finally {
+            message.release();
+        }
+    }
+}